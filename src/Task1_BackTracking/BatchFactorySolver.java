@@ -0,0 +1,165 @@
+package Task1_BackTracking;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Пакетное решение множества независимых задач распределения заказов.
+ * <p>
+ * Каждая задача решается своим экземпляром {@link FactoryOptimizationSolver}, поэтому изменяемое
+ * состояние решателей не разделяется между потоками. Количество одновременно решаемых задач
+ * ограничено семафором: пока все места заняты, чтение следующей задачи из входного потока
+ * приостанавливается (обратное давление), и память не растет вместе с длиной пакета.
+ * <p>
+ * По умолчанию каждая задача выполняется в своем виртуальном потоке ({@code Thread.ofVirtual()}):
+ * создание потока почти ничего не стоит, а параллелизм все равно ограничен семафором.
+ * Другую фабрику потоков (например, платформенных) можно передать в конструктор.
+ */
+public class BatchFactorySolver {
+
+   private final int maxInFlight;
+   private final ThreadFactory threadFactory;
+
+   /**
+    * Задачи решаются в виртуальных потоках.
+    *
+    * @param maxInFlight Максимальное количество одновременно решаемых задач.
+    */
+   public BatchFactorySolver(int maxInFlight) {
+      this(maxInFlight, Thread.ofVirtual().factory());
+   }
+
+   /**
+    * @param maxInFlight   Максимальное количество одновременно решаемых задач.
+    * @param threadFactory Фабрика потоков, в которых решаются задачи.
+    */
+   public BatchFactorySolver(int maxInFlight, ThreadFactory threadFactory) {
+      this.maxInFlight = Math.max(1, maxInFlight);
+      this.threadFactory = threadFactory;
+   }
+
+   public static void main(String[] args) {
+      int problemCount = 1000;
+      BatchFactorySolver batchSolver = new BatchFactorySolver(Runtime.getRuntime().availableProcessors());
+
+      long[] feasible = new long[1];
+      BatchStatistics statistics = batchSolver.solveAll(
+              Stream.generate(FactoryOptimizationSolver::generateSampleData).limit(problemCount),
+              item -> {
+                 if (item.result().totalCost() != -1) {
+                    feasible[0]++;
+                 }
+              });
+
+      System.out.println("--- Пакетное решение ---");
+      System.out.printf("Решено задач: %d (из них имеют решение: %d)\n", statistics.solved(), feasible[0]);
+      System.out.printf("Пропускная способность: %.1f задач/с\n", statistics.throughputPerSecond());
+      System.out.printf("Задержка p50/p90/p99/max: %.3f / %.3f / %.3f / %.3f мс\n",
+              statistics.p50Nanos() / 1e6, statistics.p90Nanos() / 1e6, statistics.p99Nanos() / 1e6, statistics.maxNanos() / 1e6);
+   }
+
+   /**
+    * Решает все задачи из потока. Результаты передаются в sink по мере готовности
+    * (не в порядке поступления); вызовы sink выполняются по одному, поэтому он может быть не потокобезопасным.
+    *
+    * @param problems Поток исходных данных, читается лениво.
+    * @param sink     Получатель результатов.
+    *
+    * @return Статистика пакета: количество задач, пропускная способность и перцентили задержки.
+    *
+    * @throws CancellationException если вызывающий поток прерван до завершения пакета
+    *                               (флаг прерывания при этом восстанавливается).
+    */
+   public BatchStatistics solveAll(Stream<ProblemData> problems, Consumer<BatchItemResult> sink) {
+      Semaphore slots = new Semaphore(maxInFlight);
+      Object sinkLock = new Object();
+      LatencyRecorder latencies = new LatencyRecorder();
+      AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+      long startedAt = System.nanoTime();
+      ExecutorService executor = Executors.newCachedThreadPool(threadFactory);
+      try {
+         long index = 0;
+         Iterator<ProblemData> iterator = problems.iterator();
+         while (iterator.hasNext() && failure.get() == null) {
+            ProblemData problem = iterator.next();
+            // Обратное давление: следующая задача читается только когда освободилось место.
+            slots.acquire();
+            long problemIndex = index++;
+            executor.execute(() -> {
+               try {
+                  long solveStart = System.nanoTime();
+                  AssignmentResult result = new FactoryOptimizationSolver(problem.deadline(), problem.orders(), problem.factories()).solve();
+                  long latency = System.nanoTime() - solveStart;
+                  latencies.record(latency);
+                  synchronized (sinkLock) {
+                     sink.accept(new BatchItemResult(problemIndex, problem, result, latency));
+                  }
+               }
+               catch (RuntimeException e) {
+                  failure.compareAndSet(null, e);
+               }
+               finally {
+                  slots.release();
+               }
+            });
+         }
+         // Дожидаемся завершения всех задач, забирая все места семафора.
+         slots.acquire(maxInFlight);
+      }
+      catch (InterruptedException e) {
+         // Статистика неполного пакета выглядела бы как результат полного, поэтому прерывание — это ошибка.
+         Thread.currentThread().interrupt();
+         CancellationException cancelled = new CancellationException("Пакетное решение прервано");
+         cancelled.initCause(e);
+         throw cancelled;
+      }
+      finally {
+         executor.shutdownNow();
+      }
+
+      if (failure.get() != null) {
+         throw failure.get();
+      }
+      return latencies.statistics(System.nanoTime() - startedAt);
+   }
+
+   /**
+    * Накопитель задержек в растущем примитивном массиве.
+    */
+   private static final class LatencyRecorder {
+      private long[] values = new long[1024];
+      private int size;
+
+      synchronized void record(long latency) {
+         if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+         }
+         values[size++] = latency;
+      }
+
+      synchronized BatchStatistics statistics(long elapsedNanos) {
+         long[] sorted = Arrays.copyOf(values, size);
+         Arrays.sort(sorted);
+         double throughput = elapsedNanos > 0 ? size * 1e9 / elapsedNanos : 0;
+         return new BatchStatistics(size, throughput, percentile(sorted, 0.50), percentile(sorted, 0.90),
+                 percentile(sorted, 0.99), size == 0 ? 0 : sorted[size - 1]);
+      }
+
+      private static long percentile(long[] sorted, double fraction) {
+         if (sorted.length == 0) {
+            return 0;
+         }
+         int rank = (int) Math.ceil(fraction * sorted.length) - 1;
+         return sorted[Math.max(0, Math.min(rank, sorted.length - 1))];
+      }
+   }
+}
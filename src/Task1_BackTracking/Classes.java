@@ -48,4 +48,37 @@ record FactoryAssignment(Factory factory, List<Integer> orders, int totalDays, l
 /**
  * Класс-запись для инкапсуляции всего набора исходных данных для задачи.
  */
-record ProblemData(int deadline, int[] orders, Factory[] factories) {}
\ No newline at end of file
+record ProblemData(int deadline, int[] orders, Factory[] factories) {}
+
+/**
+ * Класс-запись для хранения текущего лучшего (рекордного) решения.
+ * Массив assignment хранит для каждого заказа (в порядке сортировки решателя) индекс фабрики.
+ */
+record Incumbent(long cost, int[] assignment) {}
+
+
+/**
+ * Класс-запись для результата поиска с ограничением по времени.
+ * lowerBound — доказанная нижняя граница оптимальной стоимости, gap — относительный разрыв
+ * (totalCost - lowerBound) / totalCost, optimal — поиск завершен и решение доказанно оптимально.
+ */
+record AnytimeResult(AssignmentResult result, long lowerBound, double gap, boolean optimal) {}
+
+
+/**
+ * Класс-запись для результата одной задачи из пакета.
+ * index — порядковый номер задачи во входном потоке, latencyNanos — время ее решения.
+ */
+record BatchItemResult(long index, ProblemData problem, AssignmentResult result, long latencyNanos) {}
+
+/**
+ * Класс-запись для сводной статистики пакетного решения: пропускная способность и перцентили задержки.
+ */
+record BatchStatistics(long solved, double throughputPerSecond, long p50Nanos, long p90Nanos, long p99Nanos, long maxNanos) {}
+
+/**
+ * Класс-запись для точки фронта Парето "срок — стоимость".
+ * makespan — фактическая длительность плана (загрузка самой занятой фабрики), result — самый дешевый план,
+ * укладывающийся в этот срок. Более длинный срок на фронте всегда дает строго меньшую стоимость.
+ */
+record FrontierPoint(int makespan, AssignmentResult result) {}
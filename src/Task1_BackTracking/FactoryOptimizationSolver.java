@@ -1,31 +1,182 @@
 package Task1_BackTracking;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 public class FactoryOptimizationSolver {
 
-   private final int[] orders;
+   // Состояние задачи не final: его можно менять по частям через addOrder/removeOrder/updateFactory.
+   private int[] orders;
    private final Factory[] factories;
    private final int deadline;
 
-   // Глобальные переменные для хранения наилучшего найденного решения в ходе рекурсии.
-   // Использование Long.MAX_VALUE в качестве начального значения — стандартный прием.
-   private long minCost = Long.MAX_VALUE;
-   private List<Integer>[] bestAssignment = null;
+   // Стратегия поиска: порядок заказов, порядок фабрик и включенные правила отсечения.
+   private final SearchStrategy strategy;
+   private final Comparator<Integer> orderComparator;
+
+   // Нижние оценки для еще не распределенных заказов (суффиксы отсортированного массива orders):
+   // minCostSuffix[k] — сумма минимальных стоимостей заказов k..n-1 среди фабрик, укладывающихся в дедлайн,
+   // minTimeSuffix[k] — сумма минимальных времен выполнения тех же заказов.
+   private long[] minCostSuffix;
+   private long[] minTimeSuffix;
+   // false, если хотя бы один заказ не помещается в дедлайн ни на одной фабрике.
+   private boolean everyOrderFits;
+   // previousTwin[i] — индекс ближайшей предыдущей фабрики с теми же параметрами или -1.
+   private final int[] previousTwin;
+
+   // Предрасчитанные матрицы [заказ][фабрика]: время и стоимость выполнения заказа на фабрике.
+   // Горячая рекурсия только читает из них, без деления и вызовов методов записи.
+   private int[][] timeMatrix;
+   private int[][] costMatrix;
+   // factoryOrder[заказ] — порядок перебора фабрик для заказа, заданный стратегией.
+   private int[][] factoryOrder;
+
+   // Последнее найденное решение (в индексах текущего массива orders) для инкрементального пересчета.
+   // null, если решения нет или его не удалось починить после изменения задачи.
+   private int[] lastAssignment;
+
+   // Количество узлов дерева поиска, посещенных последним запуском (для замеров производительности).
+   private long exploredNodes;
+   // Отношение времени одного узла поиска с возвратом к единице работы ДП (одному шагу перебора подмасок).
+   // Замер на JDK 21: на трудных для отсечений задачах (n = 15..19, F = 4..6, от 1e5 до 1.6e7 узлов) узел стоит
+   // 22–27 нс, а ДП при n = 14..20 — 1.5–3 нс на единицу работы F * 3^n. Поэтому поиску дается work / 10 узлов:
+   // столько же времени, сколько заняло бы ДП, и худший случай — около двух запусков ДП.
+   private static final long DP_WORK_PER_NODE = 10;
+
+   // Таблица транспозиций однопоточного поиска или null, если она отключена.
+   private TranspositionTable transpositionTable;
 
    public FactoryOptimizationSolver(int deadline, int[] orders, Factory[] factories) {
+      this(deadline, orders, factories, StandardStrategy.LARGEST_FIRST);
+   }
+
+   public FactoryOptimizationSolver(int deadline, int[] orders, Factory[] factories, SearchStrategy strategy) {
       this.deadline = deadline;
-      this.factories = factories;
+      this.factories = factories.clone();
+      this.strategy = strategy;
 
       // --- Оптимизация №1: Эффективная эвристика. ---
-      // Сортируем заказы от большего к меньшему.
+      // По умолчанию (StandardStrategy.LARGEST_FIRST) сортируем заказы от большего к меньшему.
       // Размещение самых "требовательных" (больших) заказов в первую очередь позволяет быстрее обнаружить нежизнеспособные ветви рекурсии (где превышен дедлайн) и отсечь их.
       // Это значительно сужает пространство поиска.
-      this.orders = Arrays.stream(orders).boxed().sorted((a, b) -> Integer.compare(b, a)).mapToInt(Integer::intValue).toArray();
+      this.orderComparator = strategy.orderComparator(this.factories, deadline);
+      this.orders = Arrays.stream(orders).boxed().sorted(orderComparator).mapToInt(Integer::intValue).toArray();
+
+      // --- Оптимизация №6: Примитивные матрицы времени и стоимости. ---
+      int n = this.orders.length;
+      this.timeMatrix = new int[n][];
+      this.costMatrix = new int[n][];
+      this.factoryOrder = new int[n][];
+      for (int k = 0; k < n; k++) {
+         timeMatrix[k] = timeRow(this.orders[k]);
+         costMatrix[k] = costRow(this.orders[k]);
+         factoryOrder[k] = strategy.factoryOrder(this.orders[k], this.factories);
+      }
+
+      this.previousTwin = new int[factories.length];
+      precomputeBounds();
+      precomputeTwins();
+   }
+
+   private int[] timeRow(int orderSize) {
+      int[] row = new int[factories.length];
+      for (int i = 0; i < factories.length; i++) {
+         row[i] = factories[i].timeForOrder(orderSize);
+      }
+      return row;
+   }
+
+   private int[] costRow(int orderSize) {
+      int[] row = new int[factories.length];
+      for (int i = 0; i < factories.length; i++) {
+         row[i] = factories[i].costForOrder(orderSize);
+      }
+      return row;
+   }
+
+   /**
+    * --- Оптимизация №4: Предрасчет нижних оценок. ---
+    * Для каждого заказа берем самую дешевую и самую быструю фабрику, на которой он вообще укладывается в дедлайн.
+    * Сумма таких минимумов по оставшимся заказам никогда не превышает реальную стоимость (время) их выполнения,
+    * поэтому оценка допустима и отсечение по ней не теряет оптимальных решений.
+    */
+   private void precomputeBounds() {
+      int n = orders.length;
+      this.minCostSuffix = new long[n + 1];
+      this.minTimeSuffix = new long[n + 1];
+      boolean fits = true;
+      for (int k = n - 1; k >= 0; k--) {
+         long cheapest = Long.MAX_VALUE;
+         long fastest = Long.MAX_VALUE;
+         for (int i = 0; i < factories.length; i++) {
+            if (timeMatrix[k][i] <= deadline) {
+               cheapest = Math.min(cheapest, costMatrix[k][i]);
+               fastest = Math.min(fastest, timeMatrix[k][i]);
+            }
+         }
+         if (cheapest == Long.MAX_VALUE) {
+            fits = false;
+            cheapest = 0;
+            fastest = 0;
+         }
+         minCostSuffix[k] = minCostSuffix[k + 1] + cheapest;
+         minTimeSuffix[k] = minTimeSuffix[k + 1] + fastest;
+      }
+      this.everyOrderFits = fits;
+
+      if (!strategy.usesLowerBounds()) {
+         Arrays.fill(minCostSuffix, 0);
+         Arrays.fill(minTimeSuffix, 0);
+      }
+   }
+
+   /**
+    * --- Оптимизация №5: Поиск одинаковых фабрик для нарушения симметрии. ---
+    * Фабрики с одинаковыми (производительность, цена, стоимость и дни наладки) взаимозаменяемы.
+    */
+   private void precomputeTwins() {
+      for (int i = 0; i < factories.length; i++) {
+         previousTwin[i] = -1;
+         for (int j = i - 1; j >= 0; j--) {
+            if (isSameFactory(factories[i], factories[j])) {
+               previousTwin[i] = j;
+               break;
+            }
+         }
+      }
+   }
+
+   private static boolean isSameFactory(Factory a, Factory b) {
+      return a.productionPerDay() == b.productionPerDay() && a.costPerShirt() == b.costPerShirt()
+              && a.setupCost() == b.setupCost() && a.setupDays() == b.setupDays();
+   }
+
+   /**
+    * Первая фабрика, которую имеет смысл пробовать для заказа с индексом orderIndex.
+    * Заказы отсортированы, поэтому одинаковые заказы идут подряд. Перестановка одинаковых заказов
+    * между фабриками дает то же решение, поэтому внутри серии одинаковых заказов
+    * индексы фабрик не убывают (каноническое распределение).
+    */
+   private int firstFactoryFor(int orderIndex, int previousFactory) {
+      return strategy.usesSymmetryBreaking() && orderIndex > 0 && orders[orderIndex] == orders[orderIndex - 1] ? previousFactory : 0;
+   }
+
+   /**
+    * Фабрика-двойник с такой же текущей загрузкой дает симметричное поддерево поиска,
+    * поэтому из группы одинаковых фабрик с одинаковой загрузкой пробуется только первая.
+    */
+   private boolean isSymmetricToTwin(int factoryIndex, int firstFactory, int[] factoryDays) {
+      int twin = previousTwin[factoryIndex];
+      return strategy.usesSymmetryBreaking() && twin >= firstFactory && factoryDays[twin] == factoryDays[factoryIndex];
    }
 
    /**
@@ -109,88 +260,864 @@ public class FactoryOptimizationSolver {
             System.out.printf("Фабрика #%d: \n\t- Заказы (кол-во футболок): [ %s ]\n\t- Общее время выполнения: %d дней\n\t- Общая стоимость по фабрике: %d\n", assignment.factory().id(), ordersStr, assignment.totalDays(), assignment.totalCost());
          }
       }
+
+      System.out.println("\n--- Стоимость в зависимости от срока (фронт Парето) ---");
+      for (FrontierPoint point : solver.solveFrontier(1)) {
+         System.out.printf("Срок %d дней: стоимость %d\n", point.makespan(), point.result().totalCost());
+      }
    }
 
    /**
     * Публичный метод для запуска решения.
+    * Сначала работает поиск с возвратом: на большинстве задач отсечения делают его намного быстрее ДП.
+    * Если задача подходит для точного ДП по подмножествам ({@link SubsetDpSolver}), поиску дается бюджет узлов,
+    * сопоставимый по времени с ДП; когда бюджет исчерпан, задача досчитывается ДП. Так время решения
+    * не больше примерно двух запусков ДП даже на "плохих" для отсечений данных.
     *
     * @return Результат с минимальной стоимостью и планом распределения, или -1, если решения нет.
     */
    public AssignmentResult solve() {
-      // Инициализация структур для отслеживания текущего состояния в рекурсии.
-      @SuppressWarnings("unchecked") List<Integer>[] currentAssignment = new ArrayList[factories.length];
-      for (int i = 0; i < factories.length; i++) {
-         currentAssignment[i] = new ArrayList<>();
+      SearchWorker worker = sequentialWorker();
+      if (everyOrderFits) {
+         limitByDpWork(worker);
+         worker.backtrack(0, 0, (long) factories.length * deadline);
       }
-      int[] factoryDays = new int[factories.length];
+      exploredNodes = worker.nodes;
+      return worker.stopped ? solveByDp() : finish(worker);
+   }
+
+   /**
+    * Ограничивает поиск бюджетом узлов, равным по времени объему работы ДП (если ДП применимо).
+    */
+   private void limitByDpWork(SearchWorker worker) {
+      long work = SubsetDpSolver.estimatedWork(orders.length, factories.length);
+      if (work != -1) {
+         worker.stopAtNodes = Math.max(1, work / DP_WORK_PER_NODE);
+      }
+   }
+
+   private AssignmentResult solveByDp() {
+      Incumbent best = new SubsetDpSolver(deadline, orders, factories).solve();
+      lastAssignment = best == null ? null : best.assignment();
+      return best == null ? new AssignmentResult(-1, null) : buildResult(best.cost(), best.assignment());
+   }
+
+   /**
+    * Решение однопоточным поиском с возвратом независимо от формы задачи.
+    *
+    * @return Результат с минимальной стоимостью и планом распределения, или -1, если решения нет.
+    */
+   public AssignmentResult solveBacktracking() {
+      SearchWorker worker = sequentialWorker();
 
       // Запуск рекурсивного поиска с первого заказа (индекс 0) и начальной стоимостью 0.
-      backtrack(0, currentAssignment, factoryDays, 0);
+      // Если какой-то заказ не помещается ни на одну фабрику, искать нечего.
+      if (everyOrderFits) {
+         worker.backtrack(0, 0, (long) factories.length * deadline);
+      }
+      exploredNodes = worker.nodes;
+      return finish(worker);
+   }
 
+   /**
+    * Запоминает результат однопоточного поиска для инкрементального пересчета и формирует ответ.
+    */
+   private AssignmentResult finish(SearchWorker worker) {
       // Если стоимость не изменилась, значит, ни одного полного решения не было найдено.
-      if (minCost == Long.MAX_VALUE) {
+      if (worker.minCost == Long.MAX_VALUE) {
+         lastAssignment = null;
          return new AssignmentResult(-1, null);
       }
+      lastAssignment = worker.bestAssignment.clone();
+      return buildResult(worker.minCost, worker.bestAssignment);
+   }
 
-      // Формирование детального результата на основе лучшего найденного распределения.
-      List<FactoryAssignment> detailedAssignments = new ArrayList<>();
-      for (int i = 0; i < factories.length; i++) {
-         if (bestAssignment != null && !bestAssignment[i].isEmpty()) {
-            long finalFactoryCost = 0;
-            int finalFactoryDays = 0;
-            for (int orderSize : bestAssignment[i]) {
-               finalFactoryDays += factories[i].timeForOrder(orderSize);
-               finalFactoryCost += factories[i].costForOrder(orderSize);
+   /**
+    * Поиск с ограничением по времени ("anytime").
+    *
+    * @param budget Время, отведенное на поиск.
+    *
+    * @return Лучшее найденное решение вместе с нижней границей и разрывом до оптимума.
+    */
+   public AnytimeResult solve(Duration budget) {
+      return solve(budget, null);
+   }
+
+   /**
+    * Поиск с ограничением по времени ("anytime").
+    * Рекорд сразу заполняется жадным решением, поэтому отсечение работает с первого узла,
+    * а при исчерпании бюджета возвращается лучшее найденное решение.
+    *
+    * @param budget   Время, отведенное на поиск.
+    * @param progress Вызывается при каждом улучшении рекорда (может быть null).
+    *
+    * @return Лучшее найденное решение вместе с нижней границей и разрывом до оптимума.
+    */
+   public AnytimeResult solve(Duration budget, Consumer<AnytimeResult> progress) {
+      long startedAt = System.nanoTime();
+      SearchWorker worker = sequentialWorker();
+      worker.stopAtNanos = startedAt + Math.max(0, budget.toNanos());
+      worker.progress = progress;
+
+      if (!everyOrderFits) {
+         exploredNodes = 0;
+         lastAssignment = null;
+         return new AnytimeResult(new AssignmentResult(-1, null), Long.MAX_VALUE, 0, true);
+      }
+
+      Incumbent seed = greedyAssignment();
+      if (seed != null) {
+         worker.seed(seed);
+      }
+
+      worker.backtrack(0, 0, (long) factories.length * deadline);
+      exploredNodes = worker.nodes;
+
+      boolean optimal = !worker.stopped;
+      long lowerBound = optimal ? worker.minCost : Math.min(worker.minCost, worker.openLowerBound);
+      AssignmentResult result = finish(worker);
+      if (worker.minCost == Long.MAX_VALUE) {
+         return new AnytimeResult(result, lowerBound, optimal ? 0 : 1, optimal);
+      }
+      return anytimeResult(worker.minCost, worker.bestAssignment, lowerBound, optimal);
+   }
+
+   // --- Инкрементальное изменение задачи ---
+
+   /**
+    * Добавляет заказ. Строки матриц времени и стоимости для остальных заказов переиспользуются,
+    * а прошлое решение чинится: новый заказ отдается самой дешевой фабрике, которая еще успевает.
+    *
+    * @param orderSize Количество футболок в новом заказе.
+    */
+   public void addOrder(int orderSize) {
+      // Позиция вставки сохраняет порядок заказов стратегии (после всех равных заказов).
+      int position = 0;
+      while (position < orders.length && orderComparator.compare(orders[position], orderSize) <= 0) {
+         position++;
+      }
+      int n = orders.length;
+
+      int[] newOrders = new int[n + 1];
+      int[][] newTimes = new int[n + 1][];
+      int[][] newCosts = new int[n + 1][];
+      int[][] newFactoryOrder = new int[n + 1][];
+      System.arraycopy(orders, 0, newOrders, 0, position);
+      System.arraycopy(orders, position, newOrders, position + 1, n - position);
+      System.arraycopy(timeMatrix, 0, newTimes, 0, position);
+      System.arraycopy(timeMatrix, position, newTimes, position + 1, n - position);
+      System.arraycopy(costMatrix, 0, newCosts, 0, position);
+      System.arraycopy(costMatrix, position, newCosts, position + 1, n - position);
+      System.arraycopy(factoryOrder, 0, newFactoryOrder, 0, position);
+      System.arraycopy(factoryOrder, position, newFactoryOrder, position + 1, n - position);
+      newOrders[position] = orderSize;
+      newTimes[position] = timeRow(orderSize);
+      newCosts[position] = costRow(orderSize);
+      newFactoryOrder[position] = strategy.factoryOrder(orderSize, factories);
+      orders = newOrders;
+      timeMatrix = newTimes;
+      costMatrix = newCosts;
+      factoryOrder = newFactoryOrder;
+      precomputeBounds();
+
+      if (lastAssignment != null) {
+         int[] repaired = new int[n + 1];
+         System.arraycopy(lastAssignment, 0, repaired, 0, position);
+         System.arraycopy(lastAssignment, position, repaired, position + 1, n - position);
+         repaired[position] = -1;
+         lastAssignment = repair(repaired);
+      }
+   }
+
+   /**
+    * Удаляет один заказ указанного размера. Прошлое решение при этом остается допустимым.
+    *
+    * @param orderSize Количество футболок в удаляемом заказе.
+    *
+    * @return false, если заказа такого размера нет.
+    */
+   public boolean removeOrder(int orderSize) {
+      int position = -1;
+      for (int k = orders.length - 1; k >= 0 && position == -1; k--) {
+         if (orders[k] == orderSize) {
+            position = k;
+         }
+      }
+      if (position == -1) {
+         return false;
+      }
+      int n = orders.length;
+
+      int[] newOrders = new int[n - 1];
+      int[][] newTimes = new int[n - 1][];
+      int[][] newCosts = new int[n - 1][];
+      int[][] newFactoryOrder = new int[n - 1][];
+      System.arraycopy(orders, 0, newOrders, 0, position);
+      System.arraycopy(orders, position + 1, newOrders, position, n - position - 1);
+      System.arraycopy(timeMatrix, 0, newTimes, 0, position);
+      System.arraycopy(timeMatrix, position + 1, newTimes, position, n - position - 1);
+      System.arraycopy(costMatrix, 0, newCosts, 0, position);
+      System.arraycopy(costMatrix, position + 1, newCosts, position, n - position - 1);
+      System.arraycopy(factoryOrder, 0, newFactoryOrder, 0, position);
+      System.arraycopy(factoryOrder, position + 1, newFactoryOrder, position, n - position - 1);
+      orders = newOrders;
+      timeMatrix = newTimes;
+      costMatrix = newCosts;
+      factoryOrder = newFactoryOrder;
+      precomputeBounds();
+
+      if (lastAssignment != null) {
+         int[] repaired = new int[n - 1];
+         System.arraycopy(lastAssignment, 0, repaired, 0, position);
+         System.arraycopy(lastAssignment, position + 1, repaired, position, n - position - 1);
+         lastAssignment = repaired;
+      }
+      return true;
+   }
+
+   /**
+    * Заменяет параметры фабрики с тем же id. Пересчитывается только ее столбец в матрицах,
+    * а заказы, которые она больше не успевает выполнить, переносятся на другие фабрики.
+    *
+    * @param factory Новые параметры фабрики.
+    *
+    * @return false, если фабрики с таким id нет.
+    */
+   public boolean updateFactory(Factory factory) {
+      int index = -1;
+      for (int i = 0; i < factories.length && index == -1; i++) {
+         if (factories[i].id() == factory.id()) {
+            index = i;
+         }
+      }
+      if (index == -1) {
+         return false;
+      }
+
+      factories[index] = factory;
+      for (int k = 0; k < orders.length; k++) {
+         timeMatrix[k][index] = factory.timeForOrder(orders[k]);
+         costMatrix[k][index] = factory.costForOrder(orders[k]);
+         factoryOrder[k] = strategy.factoryOrder(orders[k], factories);
+      }
+      precomputeTwins();
+      precomputeBounds();
+
+      if (lastAssignment != null) {
+         // Заказы фабрики (от больших к меньшим) остаются на ней, пока она укладывается в дедлайн.
+         int[] repaired = lastAssignment.clone();
+         int days = 0;
+         for (int k = 0; k < orders.length; k++) {
+            if (repaired[k] == index) {
+               if (days + timeMatrix[k][index] <= deadline) {
+                  days += timeMatrix[k][index];
+               }
+               else {
+                  repaired[k] = -1;
+               }
             }
-            detailedAssignments.add(new FactoryAssignment(factories[i], bestAssignment[i], finalFactoryDays, finalFactoryCost));
          }
+         lastAssignment = repair(repaired);
       }
+      return true;
+   }
 
-      return new AssignmentResult(minCost, detailedAssignments);
+   /**
+    * Повторное решение после изменений. Рекордом сразу становится починенное прошлое решение
+    * (или жадное, если оно дешевле), поэтому после небольших изменений почти все дерево отсекается.
+    *
+    * @return Результат с минимальной стоимостью и планом распределения, или -1, если решения нет.
+    */
+   public AssignmentResult resolve() {
+      if (lastAssignment == null || !everyOrderFits) {
+         return solve();
+      }
+
+      SearchWorker worker = sequentialWorker();
+      Incumbent previous = new Incumbent(costOf(lastAssignment), lastAssignment);
+      Incumbent greedy = greedyAssignment();
+      worker.seed(greedy != null && greedy.cost() < previous.cost() ? greedy : previous);
+
+      // Как и в solve(): если отсечения не справляются за время ДП, задача досчитывается ДП.
+      limitByDpWork(worker);
+      worker.backtrack(0, 0, (long) factories.length * deadline);
+      exploredNodes = worker.nodes;
+      return worker.stopped ? solveByDp() : finish(worker);
    }
 
    /**
-    * Основной рекурсивный метод поиска с возвратом (backtracking).
+    * Доназначает заказы с фабрикой -1 на самую дешевую фабрику, которая еще успевает их выполнить.
     *
-    * @param orderIndex        Индекс текущего заказа, который нужно распределить.
-    * @param currentAssignment Текущее (частичное) распределение заказов по фабрикам.
-    * @param factoryDays       Массив с текущей суммарной загрузкой каждой фабрики в днях.
-    * @param currentTotalCost  Суммарная стоимость текущего частичного решения.
+    * @return Починенное распределение или null, если починить не удалось.
     */
-   private void backtrack(int orderIndex, List<Integer>[] currentAssignment, int[] factoryDays, long currentTotalCost) {
-      // --- Оптимизация №2: Отсечение по стоимости ---
-      // Если текущая стоимость уже выше или равна найденной минимальной,
-      // дальнейший поиск в этой ветви рекурсии бессмысленен, так как он не даст лучшего результата.
-      if (currentTotalCost >= minCost) {
-         return;
+   private int[] repair(int[] assignment) {
+      int[] factoryDays = new int[factories.length];
+      for (int k = 0; k < orders.length; k++) {
+         if (assignment[k] != -1) {
+            factoryDays[assignment[k]] += timeMatrix[k][assignment[k]];
+         }
+      }
+      for (int k = 0; k < orders.length; k++) {
+         if (assignment[k] == -1) {
+            int chosen = -1;
+            for (int i = 0; i < factories.length; i++) {
+               if (factoryDays[i] + timeMatrix[k][i] <= deadline && (chosen == -1 || costMatrix[k][i] < costMatrix[k][chosen])) {
+                  chosen = i;
+               }
+            }
+            if (chosen == -1) {
+               return null;
+            }
+            assignment[k] = chosen;
+            factoryDays[chosen] += timeMatrix[k][chosen];
+         }
+      }
+      return assignment;
+   }
+
+   private long costOf(int[] assignment) {
+      long totalCost = 0;
+      for (int k = 0; k < orders.length; k++) {
+         totalCost += costMatrix[k][assignment[k]];
       }
+      return totalCost;
+   }
 
-      if (orderIndex == orders.length) {
-         minCost = currentTotalCost;
-         this.bestAssignment = new ArrayList[factories.length];
+   private AnytimeResult anytimeResult(long cost, int[] assignment, long lowerBound, boolean optimal) {
+      double gap = cost == 0 ? 0 : (double) (cost - lowerBound) / cost;
+      return new AnytimeResult(buildResult(cost, assignment), lowerBound, gap, optimal);
+   }
+
+   /**
+    * Быстрое жадное решение для "теплого старта": каждый заказ (от большего к меньшему)
+    * отдается самой дешевой фабрике, которая еще успевает его выполнить.
+    *
+    * @return Допустимое распределение или null, если жадный выбор зашел в тупик.
+    */
+   Incumbent greedyAssignment() {
+      int[] assignment = new int[orders.length];
+      int[] factoryDays = new int[factories.length];
+      long totalCost = 0;
+      for (int k = 0; k < orders.length; k++) {
+         int chosen = -1;
          for (int i = 0; i < factories.length; i++) {
-            this.bestAssignment[i] = new ArrayList<>(currentAssignment[i]);
+            if (factoryDays[i] + timeMatrix[k][i] <= deadline
+                    && (chosen == -1 || costMatrix[k][i] < costMatrix[k][chosen]
+                    || costMatrix[k][i] == costMatrix[k][chosen] && timeMatrix[k][i] < timeMatrix[k][chosen])) {
+               chosen = i;
+            }
+         }
+         if (chosen == -1) {
+            return null;
          }
-         return;
+         assignment[k] = chosen;
+         factoryDays[chosen] += timeMatrix[k][chosen];
+         totalCost += costMatrix[k][chosen];
       }
+      return new Incumbent(totalCost, assignment);
+   }
 
-      int currentOrder = orders[orderIndex];
+   /**
+    * Параллельный режим решения: верхние уровни дерева "заказ -> фабрика" разбиваются
+    * на задачи fork-join, а рекорд хранится в общем {@link SharedIncumbent},
+    * так что каждый поток отсекает ветви по глобально лучшей стоимости.
+    *
+    * @return Тот же результат, что и у {@link #solve()}.
+    */
+   public AssignmentResult solveParallel() {
+      return solveParallel(ForkJoinPool.commonPool());
+   }
+
+   /**
+    * Параллельный режим решения в заданном пуле потоков.
+    *
+    * @param pool Пул, в котором выполняются задачи поиска.
+    *
+    * @return Результат с минимальной стоимостью и планом распределения, или -1, если решения нет.
+    */
+   public AssignmentResult solveParallel(ForkJoinPool pool) {
+      SharedIncumbent incumbent = new SharedIncumbent();
+
+      // Глубина разбиения подбирается так, чтобы задач было заметно больше, чем потоков:
+      // это сглаживает дисбаланс между ветвями, которые отсекаются рано, и "тяжелыми" ветвями.
+      int splitDepth = 0;
+      long branches = 1;
+      while (splitDepth < orders.length && branches < pool.getParallelism() * 16L) {
+         branches *= factories.length;
+         splitDepth++;
+      }
+
+      exploredNodes = 0;
+      if (everyOrderFits) {
+         BranchTask root = new BranchTask(incumbent, splitDepth, 0, new int[orders.length], new int[factories.length], 0, (long) factories.length * deadline);
+         pool.invoke(root);
+         exploredNodes = root.totalNodes();
+      }
+
+      Incumbent best = incumbent.get();
+      lastAssignment = best == null ? null : best.assignment().clone();
+      if (best == null) {
+         return new AssignmentResult(-1, null);
+      }
+      return buildResult(best.cost(), best.assignment());
+   }
+
+   /**
+    * Фронт Парето "срок — стоимость" для всех дедлайнов от minDeadline до дедлайна решателя за один поиск.
+    * <p>
+    * Вместо отдельного запуска на каждый дедлайн поиск идет один раз при максимальном дедлайне,
+    * а рекорд хранится для каждого срока: best[d] — минимальная стоимость плана длительностью не больше d.
+    * Узел отсекается, если его нижняя оценка стоимости не лучше рекорда для наименьшего срока,
+    * которого еще может достичь ветвь, поэтому отсечения общие для всех дедлайнов диапазона.
+    *
+    * @param minDeadline Наименьший интересующий дедлайн (не больше дедлайна решателя).
+    *
+    * @return Точки фронта по возрастанию срока (стоимость строго убывает); пустой список, если решения нет.
+    */
+   public List<FrontierPoint> solveFrontier(int minDeadline) {
+      if (minDeadline > deadline) {
+         throw new IllegalArgumentException("minDeadline " + minDeadline + " больше дедлайна " + deadline);
+      }
+      FrontierWorker worker = new FrontierWorker(Math.max(0, minDeadline));
+      if (everyOrderFits) {
+         worker.backtrack(0, 0, 0, 0);
+      }
+      exploredNodes = worker.nodes;
+
+      List<FrontierPoint> frontier = new ArrayList<>();
+      for (int slot = 0; slot < worker.best.length; slot++) {
+         int[] plan = worker.plans[slot];
+         if (plan != null) {
+            int makespan = 0;
+            int[] days = new int[factories.length];
+            for (int k = 0; k < orders.length; k++) {
+               days[plan[k]] += timeMatrix[k][plan[k]];
+               makespan = Math.max(makespan, days[plan[k]]);
+            }
+            frontier.add(new FrontierPoint(makespan, buildResult(worker.best[slot], plan)));
+         }
+      }
+      return frontier;
+   }
+
+   /**
+    * @return Количество узлов дерева поиска, посещенных последним поиском с возвратом (при переходе на ДП — до момента перехода).
+    */
+   public long getExploredNodes() {
+      return exploredNodes;
+   }
+
+   /**
+    * Включает таблицу транспозиций для однопоточного поиска (solveBacktracking, solve(Duration), resolve).
+    * Память таблицы ограничена: около 24 байт на запись. При переполнении старые записи вытесняются.
+    *
+    * @param capacity Максимальное количество записей; 0 отключает таблицу.
+    */
+   public void setTranspositionTableCapacity(int capacity) {
+      transpositionTable = capacity > 0 ? new TranspositionTable(capacity) : null;
+   }
+
+   /**
+    * @return Количество отсечений по таблице транспозиций за последний запуск.
+    */
+   public long getTranspositionHits() {
+      return transpositionTable == null ? 0 : transpositionTable.hits();
+   }
+
+   /**
+    * @return Количество проверок таблицы транспозиций без отсечения за последний запуск.
+    */
+   public long getTranspositionMisses() {
+      return transpositionTable == null ? 0 : transpositionTable.misses();
+   }
+
+   /**
+    * Однопоточный исполнитель поиска; таблица транспозиций очищается, так как задача могла измениться.
+    */
+   private SearchWorker sequentialWorker() {
+      SearchWorker worker = new SearchWorker(null);
+      if (transpositionTable != null) {
+         transpositionTable.clear();
+         worker.attach(transpositionTable);
+      }
+      return worker;
+   }
+
+   // --- Доступ к предрасчитанной модели для других движков пакета (только чтение) ---
+
+   int[] sortedOrders() {
+      return orders;
+   }
+
+   int[][] timeMatrix() {
+      return timeMatrix;
+   }
+
+   int[][] costMatrix() {
+      return costMatrix;
+   }
+
+   /**
+    * Поиск для портфельного режима: отсечение идет по рекорду, общему для всех стратегий,
+    * а поиск прерывается по сигналу cancelled. Если этот поиск дошел до конца, оптимальность
+    * общего рекорда доказана, и сигнал остановки выставляется для остальных стратегий.
+    *
+    * @return Лучшее решение, найденное этой стратегией, или null.
+    */
+   Incumbent searchSharing(SharedIncumbent shared, AtomicBoolean cancelled) {
+      SearchWorker worker = new SearchWorker(shared);
+      worker.cancelled = cancelled;
+      if (everyOrderFits) {
+         worker.backtrack(0, 0, (long) factories.length * deadline);
+      }
+      exploredNodes = worker.nodes;
+      if (!worker.stopped) {
+         cancelled.set(true);
+      }
+      return worker.minCost == Long.MAX_VALUE ? null : new Incumbent(worker.minCost, worker.bestAssignment.clone());
+   }
+
+   /**
+    * Формирует детальный результат по решению, найденному этим решателем.
+    */
+   AssignmentResult resultFor(Incumbent incumbent) {
+      return incumbent == null ? new AssignmentResult(-1, null) : buildResult(incumbent.cost(), incumbent.assignment());
+   }
+
+   /**
+    * Формирует детальный результат по массиву "индекс заказа -> индекс фабрики".
+    * Списки заказов создаются только здесь, один раз в конце поиска.
+    */
+   private AssignmentResult buildResult(long totalCost, int[] assignment) {
+      List<FactoryAssignment> detailedAssignments = new ArrayList<>();
       for (int i = 0; i < factories.length; i++) {
-         Factory currentFactory = factories[i];
-         int timeForThisOrder = currentFactory.timeForOrder(currentOrder);
+         List<Integer> factoryOrders = new ArrayList<>();
+         long finalFactoryCost = 0;
+         int finalFactoryDays = 0;
+         for (int orderIndex = 0; orderIndex < orders.length; orderIndex++) {
+            if (assignment[orderIndex] == i) {
+               factoryOrders.add(orders[orderIndex]);
+               finalFactoryDays += timeMatrix[orderIndex][i];
+               finalFactoryCost += costMatrix[orderIndex][i];
+            }
+         }
+         if (!factoryOrders.isEmpty()) {
+            detailedAssignments.add(new FactoryAssignment(factories[i], factoryOrders, finalFactoryDays, finalFactoryCost));
+         }
+      }
+      return new AssignmentResult(totalCost, detailedAssignments);
+   }
 
-         // --- Оптимизация №3: Отсечение по ограничениям ---
-         // Проверяем основное условие: не будет ли превышен дедлайн.
-         // Если да, то эту фабрику для данного заказа даже не рассматриваем.
-         if (factoryDays[i] + timeForThisOrder <= deadline) {
-            currentAssignment[i].add(currentOrder);
-            factoryDays[i] += timeForThisOrder;
-            long costForThisOrder = currentFactory.costForOrder(currentOrder);
+   /**
+    * Состояние поиска одного потока: только примитивные массивы, которые выделяются один раз
+    * на весь запуск. В узлах дерева поиска нет ни упаковки чисел, ни копирования списков.
+    */
+   private final class SearchWorker {
+      // Общий рекорд параллельного режима или null для однопоточного поиска.
+      private final SharedIncumbent shared;
+
+      // Текущее распределение: assignment[индекс заказа] = индекс фабрики.
+      private final int[] assignment = new int[orders.length];
+      // Текущая суммарная загрузка каждой фабрики в днях.
+      private final int[] factoryDays = new int[factories.length];
+
+      // Лучшее решение, найденное этим потоком. Снимок делается через System.arraycopy.
+      private final int[] bestAssignment = new int[orders.length];
+      private long minCost = Long.MAX_VALUE;
+      private long nodes;
+
+      // Ограничение по времени: момент остановки (System.nanoTime) и признак того, что он наступил.
+      private long stopAtNanos = Long.MAX_VALUE;
+      // Ограничение по количеству узлов (бюджет перед переходом на ДП).
+      private long stopAtNodes = Long.MAX_VALUE;
+      private boolean stopped;
+      // Минимум нижних оценок по ветвям, которые остались неисследованными из-за остановки.
+      private long openLowerBound = Long.MAX_VALUE;
+      private Consumer<AnytimeResult> progress;
+      // Внешний сигнал остановки (портфельный режим) или null.
+      private AtomicBoolean cancelled;
+
+      // Таблица транспозиций (или null), хеш текущих загрузок и проверочный ключ к нему; оба обновляются за O(1) на ход.
+      private TranspositionTable table;
+      private long loadsHash;
+      private long loadsCheck;
+
+      SearchWorker(SharedIncumbent shared) {
+         this.shared = shared;
+      }
+
+      void attach(TranspositionTable table) {
+         this.table = table;
+         loadsHash = 0;
+         loadsCheck = 0;
+         for (int i = 0; i < factoryDays.length; i++) {
+            loadsHash += TranspositionTable.factoryHash(i, factoryDays[i]);
+            loadsCheck ^= TranspositionTable.factoryCheck(i, factoryDays[i]);
+         }
+      }
+
+      /**
+       * Начальный рекорд (например, жадное решение).
+       */
+      void seed(Incumbent incumbent) {
+         minCost = incumbent.cost();
+         System.arraycopy(incumbent.assignment(), 0, bestAssignment, 0, bestAssignment.length);
+         if (progress != null) {
+            progress.accept(anytimeResult(minCost, bestAssignment, minCostSuffix[0], false));
+         }
+      }
+
+      /**
+       * Основной рекурсивный метод поиска с возвратом (backtracking).
+       *
+       * @param orderIndex       Индекс текущего заказа, который нужно распределить.
+       * @param currentTotalCost Суммарная стоимость текущего частичного решения.
+       * @param freeDays         Суммарный остаток дней до дедлайна по всем фабрикам.
+       */
+      void backtrack(int orderIndex, long currentTotalCost, long freeDays) {
+         // Время и сигнал остановки проверяются раз в 4096 узлов, чтобы не тормозить горячий цикл.
+         if ((++nodes & 0xFFF) == 0 && (nodes >= stopAtNodes || System.nanoTime() >= stopAtNanos || cancelled != null && cancelled.get())) {
+            stopped = true;
+         }
+         if (stopped) {
+            openLowerBound = Math.min(openLowerBound, currentTotalCost + minCostSuffix[orderIndex]);
+            return;
+         }
+
+         // --- Оптимизация №2: Отсечение по стоимости ---
+         // Если текущая стоимость вместе с минимально возможной стоимостью оставшихся заказов
+         // уже выше или равна найденной минимальной, дальнейший поиск в этой ветви рекурсии бессмысленен.
+         if (currentTotalCost + minCostSuffix[orderIndex] >= bound()) {
+            return;
+         }
+         // Оставшиеся заказы даже на самых быстрых фабриках не помещаются в свободные фабрико-дни.
+         if (minTimeSuffix[orderIndex] > freeDays) {
+            return;
+         }
+
+         if (orderIndex == orders.length) {
+            minCost = currentTotalCost;
+            System.arraycopy(assignment, 0, bestAssignment, 0, assignment.length);
+            if (shared != null) {
+               shared.offer(currentTotalCost, assignment);
+            }
+            if (progress != null) {
+               progress.accept(anytimeResult(minCost, bestAssignment, minCostSuffix[0], false));
+            }
+            return;
+         }
+
+         int[] times = timeMatrix[orderIndex];
+         int[] costs = costMatrix[orderIndex];
+         int[] order = factoryOrder[orderIndex];
+         int firstFactory = firstFactoryFor(orderIndex, orderIndex > 0 ? assignment[orderIndex - 1] : 0);
+
+         // --- Оптимизация №7: Таблица транспозиций ---
+         // Это же состояние (заказ, загрузка фабрик, ограничение серии одинаковых заказов) уже встречалось
+         // с не большей стоимостью: все его продолжения уже рассмотрены.
+         if (table != null && table.isDominated(TranspositionTable.key(loadsHash, orderIndex, firstFactory),
+               TranspositionTable.check(loadsCheck, orderIndex, firstFactory), currentTotalCost)) {
+            return;
+         }
+
+         for (int position = 0; position < order.length; position++) {
+            int i = order[position];
+            if (i < firstFactory || isSymmetricToTwin(i, firstFactory, factoryDays)) {
+               continue;
+            }
+            int timeForThisOrder = times[i];
 
-            backtrack(orderIndex + 1, currentAssignment, factoryDays, currentTotalCost + costForThisOrder);
+            // --- Оптимизация №3: Отсечение по ограничениям ---
+            // Проверяем основное условие: не будет ли превышен дедлайн.
+            // Если да, то эту фабрику для данного заказа даже не рассматриваем.
+            if (factoryDays[i] + timeForThisOrder <= deadline) {
+               assignment[orderIndex] = i;
+               long hashDelta = 0;
+               long checkDelta = 0;
+               if (table != null) {
+                  hashDelta = TranspositionTable.factoryHash(i, factoryDays[i] + timeForThisOrder) - TranspositionTable.factoryHash(i, factoryDays[i]);
+                  checkDelta = TranspositionTable.factoryCheck(i, factoryDays[i] + timeForThisOrder) ^ TranspositionTable.factoryCheck(i, factoryDays[i]);
+               }
+               factoryDays[i] += timeForThisOrder;
+               loadsHash += hashDelta;
+               loadsCheck ^= checkDelta;
+
+               backtrack(orderIndex + 1, currentTotalCost + costs[i], freeDays - timeForThisOrder);
+
+               factoryDays[i] -= timeForThisOrder;
+               loadsHash -= hashDelta;
+               loadsCheck ^= checkDelta;
+
+               if (stopped) {
+                  // Оставшиеся фабрики этого уровня так и не были рассмотрены: учитываем их оценки.
+                  for (int next = position + 1; next < order.length; next++) {
+                     int j = order[next];
+                     if (factoryDays[j] + times[j] <= deadline) {
+                        openLowerBound = Math.min(openLowerBound, currentTotalCost + costs[j] + minCostSuffix[orderIndex + 1]);
+                     }
+                  }
+                  return;
+               }
+            }
+         }
+      }
+
+      /**
+       * Граница отсечения: собственный рекорд потока или общий рекорд, если он лучше.
+       */
+      private long bound() {
+         return shared == null ? minCost : Math.min(minCost, shared.bestCost());
+      }
+   }
 
-            factoryDays[i] -= timeForThisOrder;
-            currentAssignment[i].remove(currentAssignment[i].size() - 1);
+   /**
+    * Задача fork-join для одной ветви дерева поиска.
+    * До глубины splitDepth каждая допустимая фабрика порождает отдельную подзадачу,
+    * глубже поиск идет последовательно в текущем потоке через {@link SearchWorker}.
+    */
+   private final class BranchTask extends RecursiveAction {
+      private static final long serialVersionUID = 1L;
+
+      private final transient SharedIncumbent incumbent;
+      private final int splitDepth;
+      private final int orderIndex;
+      private final int[] assignment;
+      private final int[] factoryDays;
+      private final long currentTotalCost;
+      private final long freeDays;
+
+      private transient List<BranchTask> subtasks = List.of();
+      private long nodes;
+
+      BranchTask(SharedIncumbent incumbent, int splitDepth, int orderIndex, int[] assignment, int[] factoryDays, long currentTotalCost, long freeDays) {
+         this.incumbent = incumbent;
+         this.splitDepth = splitDepth;
+         this.orderIndex = orderIndex;
+         this.assignment = assignment;
+         this.factoryDays = factoryDays;
+         this.currentTotalCost = currentTotalCost;
+         this.freeDays = freeDays;
+      }
+
+      @Override
+      protected void compute() {
+         if (orderIndex >= splitDepth) {
+            SearchWorker worker = new SearchWorker(incumbent);
+            System.arraycopy(assignment, 0, worker.assignment, 0, orderIndex);
+            System.arraycopy(factoryDays, 0, worker.factoryDays, 0, factoryDays.length);
+            worker.backtrack(orderIndex, currentTotalCost, freeDays);
+            nodes = worker.nodes;
+            return;
+         }
+         nodes = 1;
+         if (currentTotalCost + minCostSuffix[orderIndex] >= incumbent.bestCost() || minTimeSuffix[orderIndex] > freeDays) {
+            return;
+         }
+
+         int firstFactory = firstFactoryFor(orderIndex, orderIndex > 0 ? assignment[orderIndex - 1] : 0);
+         subtasks = new ArrayList<>(factories.length);
+         for (int i : factoryOrder[orderIndex]) {
+            if (i < firstFactory || isSymmetricToTwin(i, firstFactory, factoryDays)) {
+               continue;
+            }
+            int timeForThisOrder = timeMatrix[orderIndex][i];
+            if (factoryDays[i] + timeForThisOrder <= deadline) {
+               // Каждая подзадача получает собственную копию состояния.
+               int[] childAssignment = assignment.clone();
+               int[] childDays = factoryDays.clone();
+               childAssignment[orderIndex] = i;
+               childDays[i] += timeForThisOrder;
+               subtasks.add(new BranchTask(incumbent, splitDepth, orderIndex + 1, childAssignment, childDays,
+                       currentTotalCost + costMatrix[orderIndex][i], freeDays - timeForThisOrder));
+            }
+         }
+         invokeAll(subtasks);
+      }
+
+      /**
+       * @return Количество узлов, посещенных этой задачей и всеми ее подзадачами.
+       */
+      long totalNodes() {
+         long total = nodes;
+         for (BranchTask subtask : subtasks) {
+            total += subtask.totalNodes();
+         }
+         return total;
+      }
+   }
+
+   /**
+    * Поиск фронта "срок — стоимость": тот же перебор, что и в {@link SearchWorker},
+    * но вместо одного рекорда хранится рекорд для каждого срока диапазона.
+    */
+   private final class FrontierWorker {
+      private final int minDeadline;
+
+      // best[d - minDeadline] — минимальная стоимость плана длительностью не больше d (не возрастает по d).
+      private final long[] best;
+      // plans[d - minDeadline] — план, длительность которого (с учетом minDeadline) равна ровно d, или null.
+      private final int[][] plans;
+
+      private final int[] assignment = new int[orders.length];
+      private final int[] factoryDays = new int[factories.length];
+      private long nodes;
+
+      FrontierWorker(int minDeadline) {
+         this.minDeadline = minDeadline;
+         this.best = new long[deadline - minDeadline + 1];
+         this.plans = new int[best.length][];
+         Arrays.fill(best, Long.MAX_VALUE);
+      }
+
+      /**
+       * @param orderIndex       Индекс текущего заказа.
+       * @param currentTotalCost Стоимость уже распределенных заказов.
+       * @param usedDays         Суммарная загрузка всех фабрик.
+       * @param makespan         Загрузка самой занятой фабрики.
+       */
+      void backtrack(int orderIndex, long currentTotalCost, long usedDays, int makespan) {
+         nodes++;
+
+         // Итоговая длительность не меньше текущей и не меньше средней загрузки после распределения остатка.
+         long averageDays = (usedDays + minTimeSuffix[orderIndex] + factories.length - 1) / factories.length;
+         long reachable = Math.max(Math.max(makespan, averageDays), minDeadline);
+         if (reachable > deadline) {
+            return;
+         }
+         // best не возрастает по сроку: если оценка не лучше рекорда для наименьшего достижимого срока,
+         // то она не лучше рекорда и для любого большего.
+         if (currentTotalCost + minCostSuffix[orderIndex] >= best[(int) reachable - minDeadline]) {
+            return;
+         }
+
+         if (orderIndex == orders.length) {
+            int slot = Math.max(makespan, minDeadline) - minDeadline;
+            plans[slot] = assignment.clone();
+            best[slot] = currentTotalCost;
+            // Планы с большим сроком, которые теперь не дешевле, с фронта выбывают.
+            for (int d = slot + 1; d < best.length && best[d] >= currentTotalCost; d++) {
+               best[d] = currentTotalCost;
+               plans[d] = null;
+            }
+            return;
+         }
+
+         int[] order = factoryOrder[orderIndex];
+         int firstFactory = firstFactoryFor(orderIndex, orderIndex > 0 ? assignment[orderIndex - 1] : 0);
+         for (int i : order) {
+            if (i < firstFactory || isSymmetricToTwin(i, firstFactory, factoryDays)) {
+               continue;
+            }
+            int timeForThisOrder = timeMatrix[orderIndex][i];
+            if (factoryDays[i] + timeForThisOrder <= deadline) {
+               assignment[orderIndex] = i;
+               factoryDays[i] += timeForThisOrder;
+
+               backtrack(orderIndex + 1, currentTotalCost + costMatrix[orderIndex][i], usedDays + timeForThisOrder,
+                       Math.max(makespan, factoryDays[i]));
+
+               factoryDays[i] -= timeForThisOrder;
+            }
          }
       }
    }
@@ -0,0 +1,318 @@
+package Task1_BackTracking;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+/**
+ * Эвристический решатель для больших книг заказов (сотни и тысячи заказов), где точный поиск с возвратом
+ * не успевает. Используется поиск в большой окрестности (Large Neighbourhood Search):
+ * <ol>
+ *    <li>строится допустимое начальное решение (жадное);</li>
+ *    <li>из решения "вынимается" небольшое подмножество заказов (destroy);</li>
+ *    <li>вынутые заказы заново распределяются точным мини-поиском с возвратом при фиксированной загрузке
+ *    остальных фабрик (repair); дедлайн соблюдается на каждом шаге;</li>
+ *    <li>стоимость и загрузка фабрик обновляются по приращениям, без полного пересчета.</li>
+ * </ol>
+ * Несколько потоков улучшают решение независимо, обмениваясь лучшим результатом через {@link SharedIncumbent}.
+ * Решение не обязательно оптимально, а -1 означает лишь, что допустимое начальное решение не найдено.
+ */
+public class LargeNeighbourhoodSolver {
+
+   // Максимальное количество заказов, вынимаемых за одну итерацию.
+   private static final int MAX_DESTROY = 6;
+   // Ограничение на число узлов точного мини-поиска при починке.
+   private static final int REPAIR_NODE_LIMIT = 20_000;
+   // Как часто (в итерациях) поток сверяется с общим рекордом.
+   private static final int SYNC_INTERVAL = 256;
+
+   private final FactoryOptimizationSolver model;
+   private final int deadline;
+   private final int[] orders;
+   private final int factoryCount;
+   private final int[][] timeMatrix;
+   private final int[][] costMatrix;
+   // cheapestFirst[заказ] — фабрики по возрастанию стоимости заказа, только те, где заказ укладывается в дедлайн.
+   private final int[][] cheapestFirst;
+   private final int threads;
+
+   public LargeNeighbourhoodSolver(int deadline, int[] orders, Factory[] factories) {
+      this(deadline, orders, factories, Runtime.getRuntime().availableProcessors());
+   }
+
+   public LargeNeighbourhoodSolver(int deadline, int[] orders, Factory[] factories, int threads) {
+      // Матрицы времени и стоимости, порядок заказов и жадный старт берутся из точного решателя.
+      this.model = new FactoryOptimizationSolver(deadline, orders, factories);
+      this.deadline = deadline;
+      this.orders = model.sortedOrders();
+      this.factoryCount = factories.length;
+      this.timeMatrix = model.timeMatrix();
+      this.costMatrix = model.costMatrix();
+      this.threads = Math.max(1, threads);
+
+      this.cheapestFirst = new int[this.orders.length][];
+      for (int k = 0; k < this.orders.length; k++) {
+         int[] costs = costMatrix[k];
+         int[] times = timeMatrix[k];
+         cheapestFirst[k] = IntStream.range(0, factoryCount).boxed()
+                 .filter(i -> times[i] <= deadline)
+                 .sorted((i, j) -> costs[i] != costs[j] ? Integer.compare(costs[i], costs[j]) : Integer.compare(times[i], times[j]))
+                 .mapToInt(Integer::intValue).toArray();
+      }
+   }
+
+   public static void main(String[] args) {
+      Random rand = new Random(42);
+      int orderCount = 1000;
+      int factoryCount = 50;
+      int[] orders = new int[orderCount];
+      for (int i = 0; i < orderCount; i++) {
+         orders[i] = (rand.nextInt(100) + 1) * 10;
+      }
+      Factory[] factories = new Factory[factoryCount];
+      for (int i = 0; i < factoryCount; i++) {
+         factories[i] = new Factory(i + 1, (rand.nextInt(20) + 1) * 10, rand.nextInt(10) + 1, (rand.nextInt(50) + 5) * 10, rand.nextInt(5) + 1);
+      }
+      int deadline = 250;
+
+      LargeNeighbourhoodSolver solver = new LargeNeighbourhoodSolver(deadline, orders, factories);
+      Incumbent start = solver.model.greedyAssignment();
+      long startedAt = System.nanoTime();
+      AssignmentResult result = solver.solve(Duration.ofSeconds(3));
+      long elapsedMs = (System.nanoTime() - startedAt) / 1_000_000;
+
+      System.out.println("--- Поиск в большой окрестности ---");
+      System.out.printf("Заказов: %d, фабрик: %d, дедлайн: %d дней\n", orderCount, factoryCount, deadline);
+      System.out.println("Стоимость жадного решения: " + (start == null ? "нет решения" : start.cost()));
+      System.out.println("Стоимость после улучшения: " + result.totalCost() + " (за " + elapsedMs + " мс)");
+   }
+
+   /**
+    * Улучшает решение, пока не истечет бюджет времени.
+    *
+    * @param budget Время, отведенное на поиск.
+    *
+    * @return Лучшее найденное решение или -1, если не удалось построить допустимое начальное решение.
+    */
+   public AssignmentResult solve(Duration budget) {
+      long stopAt = System.nanoTime() + Math.max(0, budget.toNanos());
+      Incumbent start = initialSolution();
+      if (start == null) {
+         return new AssignmentResult(-1, null);
+      }
+
+      SharedIncumbent shared = new SharedIncumbent();
+      shared.offer(start.cost(), start.assignment());
+
+      ExecutorService executor = Executors.newFixedThreadPool(threads);
+      try {
+         List<Callable<Void>> workers = new ArrayList<>();
+         for (int t = 0; t < threads; t++) {
+            long seed = 31L * t + 17;
+            workers.add(() -> {
+               new Worker(shared, new Random(seed)).run(stopAt);
+               return null;
+            });
+         }
+         for (Future<Void> future : executor.invokeAll(workers)) {
+            future.get();
+         }
+      }
+      catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+      }
+      catch (ExecutionException e) {
+         throw new IllegalStateException(e.getCause());
+      }
+      finally {
+         executor.shutdownNow();
+      }
+
+      return model.resultFor(shared.get());
+   }
+
+   /**
+    * Начальное решение: сначала жадное "самая дешевая фабрика", если оно заходит в тупик —
+    * жадное "минимальная загрузка после назначения", которое бережет емкость фабрик.
+    */
+   private Incumbent initialSolution() {
+      Incumbent greedy = model.greedyAssignment();
+      if (greedy != null) {
+         return greedy;
+      }
+
+      int[] assignment = new int[orders.length];
+      int[] loads = new int[factoryCount];
+      long totalCost = 0;
+      for (int k = 0; k < orders.length; k++) {
+         int chosen = -1;
+         for (int i = 0; i < factoryCount; i++) {
+            int load = loads[i] + timeMatrix[k][i];
+            if (load <= deadline && (chosen == -1 || load < loads[chosen] + timeMatrix[k][chosen])) {
+               chosen = i;
+            }
+         }
+         if (chosen == -1) {
+            return null;
+         }
+         assignment[k] = chosen;
+         loads[chosen] += timeMatrix[k][chosen];
+         totalCost += costMatrix[k][chosen];
+      }
+      return new Incumbent(totalCost, assignment);
+   }
+
+   /**
+    * Состояние одного потока: текущее решение, загрузка фабрик и буферы мини-поиска.
+    */
+   private final class Worker {
+      private final SharedIncumbent shared;
+      private final Random random;
+
+      private final int[] assignment = new int[orders.length];
+      private final int[] loads = new int[factoryCount];
+      private long cost;
+
+      // Буферы окрестности: вынутые заказы, их лучшие новые фабрики и текущий вариант мини-поиска.
+      private final int[] removed = new int[MAX_DESTROY];
+      private final int[] repairChoice = new int[MAX_DESTROY];
+      private final int[] bestChoice = new int[MAX_DESTROY];
+      private final long[] minCostSuffix = new long[MAX_DESTROY + 1];
+      private final boolean[] isRemoved = new boolean[orders.length];
+      private int removedCount;
+      private long bestRepairCost;
+      private int repairNodes;
+
+      Worker(SharedIncumbent shared, Random random) {
+         this.shared = shared;
+         this.random = random;
+         adopt(shared.get());
+      }
+
+      void run(long stopAt) {
+         if (orders.length == 0) {
+            return;
+         }
+         for (long iteration = 1; System.nanoTime() < stopAt; iteration++) {
+            destroy();
+            repair();
+
+            if (cost < shared.bestCost()) {
+               shared.offer(cost, assignment);
+            }
+            // Время от времени подтягиваем лучшее решение других потоков.
+            if (iteration % SYNC_INTERVAL == 0) {
+               Incumbent best = shared.get();
+               if (best.cost() < cost) {
+                  adopt(best);
+               }
+            }
+         }
+      }
+
+      private void adopt(Incumbent incumbent) {
+         System.arraycopy(incumbent.assignment(), 0, assignment, 0, assignment.length);
+         Arrays.fill(loads, 0);
+         for (int k = 0; k < orders.length; k++) {
+            loads[assignment[k]] += timeMatrix[k][assignment[k]];
+         }
+         cost = incumbent.cost();
+      }
+
+      /**
+       * Вынимает из решения от 2 до MAX_DESTROY заказов: либо случайных, либо с двух случайных фабрик
+       * (такая окрестность позволяет обменивать заказы между фабриками).
+       */
+      private void destroy() {
+         int limit = Math.min(MAX_DESTROY, orders.length);
+         int target = limit == 1 ? 1 : 2 + random.nextInt(limit - 1);
+         removedCount = 0;
+
+         if (random.nextBoolean()) {
+            int first = assignment[random.nextInt(orders.length)];
+            int second = assignment[random.nextInt(orders.length)];
+            // Несколько случайных попыток выбрать заказы именно с этих двух фабрик.
+            for (int attempt = 0; attempt < 8 * target && removedCount < target; attempt++) {
+               int k = random.nextInt(orders.length);
+               if (!isRemoved[k] && (assignment[k] == first || assignment[k] == second)) {
+                  take(k);
+               }
+            }
+         }
+         while (removedCount < target) {
+            int k = random.nextInt(orders.length);
+            if (!isRemoved[k]) {
+               take(k);
+            }
+         }
+
+         // Крупные заказы распределяются первыми, как и в точном поиске.
+         Arrays.sort(removed, 0, removedCount);
+         minCostSuffix[removedCount] = 0;
+         for (int j = removedCount - 1; j >= 0; j--) {
+            int k = removed[j];
+            minCostSuffix[j] = minCostSuffix[j + 1] + costMatrix[k][cheapestFirst[k][0]];
+         }
+      }
+
+      private void take(int k) {
+         isRemoved[k] = true;
+         removed[removedCount++] = k;
+         loads[assignment[k]] -= timeMatrix[k][assignment[k]];
+         cost -= costMatrix[k][assignment[k]];
+      }
+
+      /**
+       * Точный мини-поиск по вынутым заказам при фиксированной загрузке остальных фабрик.
+       * Исходное распределение всегда допустимо, поэтому хуже, чем было, не станет.
+       */
+      private void repair() {
+         long previousCost = 0;
+         for (int j = 0; j < removedCount; j++) {
+            int k = removed[j];
+            previousCost += costMatrix[k][assignment[k]];
+            bestChoice[j] = assignment[k];
+         }
+         bestRepairCost = previousCost;
+         repairNodes = 0;
+         search(0, 0);
+
+         for (int j = 0; j < removedCount; j++) {
+            int k = removed[j];
+            assignment[k] = bestChoice[j];
+            loads[assignment[k]] += timeMatrix[k][assignment[k]];
+            isRemoved[k] = false;
+         }
+         cost += bestRepairCost;
+      }
+
+      private void search(int j, long partialCost) {
+         if (partialCost + minCostSuffix[j] >= bestRepairCost || ++repairNodes > REPAIR_NODE_LIMIT) {
+            return;
+         }
+         if (j == removedCount) {
+            bestRepairCost = partialCost;
+            System.arraycopy(repairChoice, 0, bestChoice, 0, removedCount);
+            return;
+         }
+         int k = removed[j];
+         for (int i : cheapestFirst[k]) {
+            int time = timeMatrix[k][i];
+            if (loads[i] + time <= deadline) {
+               repairChoice[j] = i;
+               loads[i] += time;
+               search(j + 1, partialCost + costMatrix[k][i]);
+               loads[i] -= time;
+            }
+         }
+      }
+   }
+}
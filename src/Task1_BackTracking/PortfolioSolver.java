@@ -0,0 +1,94 @@
+package Task1_BackTracking;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Портфельный решатель: несколько стратегий поиска запускаются параллельно на одной задаче.
+ * <p>
+ * Все стратегии отсекают ветви по общему рекорду ({@link SharedIncumbent}), поэтому хорошее решение,
+ * найденное одной стратегией, сразу ускоряет остальные. Как только любая стратегия завершает поиск,
+ * оптимальность рекорда доказана и остальные стратегии останавливаются.
+ */
+public class PortfolioSolver {
+
+   private final List<FactoryOptimizationSolver> solvers = new ArrayList<>();
+   private final List<SearchStrategy> strategies;
+   private SearchStrategy winner;
+
+   public PortfolioSolver(int deadline, int[] orders, Factory[] factories) {
+      this(deadline, orders, factories, List.of(StandardStrategy.values()));
+   }
+
+   public PortfolioSolver(int deadline, int[] orders, Factory[] factories, List<SearchStrategy> strategies) {
+      this.strategies = List.copyOf(strategies);
+      for (SearchStrategy strategy : this.strategies) {
+         solvers.add(new FactoryOptimizationSolver(deadline, orders, factories, strategy));
+      }
+   }
+
+   public static void main(String[] args) {
+      ProblemData data = FactoryOptimizationSolver.fillSampleData();
+      PortfolioSolver portfolio = new PortfolioSolver(data.deadline(), data.orders(), data.factories());
+      AssignmentResult result = portfolio.solve();
+
+      System.out.println("--- Портфельный поиск ---");
+      System.out.println("Стратегии: " + portfolio.strategies.stream().map(SearchStrategy::name).collect(Collectors.joining(", ")));
+      System.out.println("Минимальная общая стоимость: " + result.totalCost());
+      System.out.println("Решение найдено стратегией: " + portfolio.getWinningStrategy().name());
+   }
+
+   /**
+    * Запускает все стратегии параллельно и ждет, пока одна из них докажет оптимальность.
+    *
+    * @return Результат с минимальной стоимостью и планом распределения, или -1, если решения нет.
+    */
+   public AssignmentResult solve() {
+      SharedIncumbent shared = new SharedIncumbent();
+      AtomicBoolean cancelled = new AtomicBoolean();
+      ExecutorService executor = Executors.newFixedThreadPool(solvers.size());
+      try {
+         List<Future<Incumbent>> futures = new ArrayList<>();
+         for (FactoryOptimizationSolver solver : solvers) {
+            futures.add(executor.submit(() -> solver.searchSharing(shared, cancelled)));
+         }
+
+         // Итоговое решение берется у той стратегии, чей собственный рекорд совпал с общим.
+         int bestIndex = -1;
+         Incumbent best = null;
+         for (int i = 0; i < futures.size(); i++) {
+            Incumbent candidate = futures.get(i).get();
+            if (candidate != null && (best == null || candidate.cost() < best.cost())) {
+               best = candidate;
+               bestIndex = i;
+            }
+         }
+         winner = bestIndex == -1 ? strategies.get(0) : strategies.get(bestIndex);
+         return bestIndex == -1 ? new AssignmentResult(-1, null) : solvers.get(bestIndex).resultFor(best);
+      }
+      catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         cancelled.set(true);
+         throw new IllegalStateException("Портфельный поиск прерван", e);
+      }
+      catch (ExecutionException e) {
+         throw new IllegalStateException(e.getCause());
+      }
+      finally {
+         executor.shutdownNow();
+      }
+   }
+
+   /**
+    * @return Стратегия, решение которой вернул последний вызов {@link #solve()}.
+    */
+   public SearchStrategy getWinningStrategy() {
+      return winner;
+   }
+}
@@ -0,0 +1,48 @@
+package Task1_BackTracking;
+
+import java.util.Comparator;
+
+/**
+ * Стратегия поиска с возвратом: в каком порядке распределять заказы, в каком порядке
+ * перебирать для них фабрики и какие правила отсечения включать.
+ * Ни одна стратегия не быстрее всех на любых данных, поэтому несколько стратегий
+ * можно запускать наперегонки в {@link PortfolioSolver}.
+ */
+public interface SearchStrategy {
+
+   /**
+    * @return Название стратегии (для вывода).
+    */
+   String name();
+
+   /**
+    * Порядок распределения заказов. Сортировка стабильна, поэтому компаратор, всегда возвращающий 0,
+    * сохраняет исходный порядок заказов.
+    *
+    * @param factories Фабрики задачи.
+    * @param deadline  Дедлайн задачи.
+    *
+    * @return Компаратор размеров заказов.
+    */
+   Comparator<Integer> orderComparator(Factory[] factories, int deadline);
+
+   /**
+    * Порядок перебора фабрик для заказа.
+    *
+    * @param orderSize Количество футболок в заказе.
+    * @param factories Фабрики задачи.
+    *
+    * @return Перестановка индексов фабрик.
+    */
+   int[] factoryOrder(int orderSize, Factory[] factories);
+
+   /**
+    * @return true, если нужно отсекать ветви по нижним оценкам стоимости и емкости.
+    */
+   boolean usesLowerBounds();
+
+   /**
+    * @return true, если нужно отбрасывать симметричные распределения одинаковых заказов и фабрик.
+    */
+   boolean usesSymmetryBreaking();
+}
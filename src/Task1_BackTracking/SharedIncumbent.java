@@ -0,0 +1,52 @@
+package Task1_BackTracking;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Общий для всех потоков рекорд (лучшее найденное решение).
+ * Обновляется без блокировок через compareAndSet, поэтому каждый поток
+ * может отсекать ветви по глобально лучшей стоимости.
+ */
+final class SharedIncumbent {
+
+   private final AtomicReference<Incumbent> best = new AtomicReference<>();
+
+   /**
+    * @return Стоимость лучшего решения или Long.MAX_VALUE, если решений еще нет.
+    */
+   long bestCost() {
+      Incumbent current = best.get();
+      return current == null ? Long.MAX_VALUE : current.cost();
+   }
+
+   /**
+    * @return Лучшее найденное решение или null, если решений еще нет.
+    */
+   Incumbent get() {
+      return best.get();
+   }
+
+   /**
+    * Предлагает новое решение. Массив копируется только в случае улучшения рекорда.
+    *
+    * @param cost       Стоимость решения.
+    * @param assignment Распределение заказов по фабрикам.
+    *
+    * @return true, если решение стало новым рекордом.
+    */
+   boolean offer(long cost, int[] assignment) {
+      Incumbent candidate = null;
+      while (true) {
+         Incumbent current = best.get();
+         if (current != null && current.cost() <= cost) {
+            return false;
+         }
+         if (candidate == null) {
+            candidate = new Incumbent(cost, assignment.clone());
+         }
+         if (best.compareAndSet(current, candidate)) {
+            return true;
+         }
+      }
+   }
+}
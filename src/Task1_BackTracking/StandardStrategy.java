@@ -0,0 +1,96 @@
+package Task1_BackTracking;
+
+import java.util.Comparator;
+import java.util.stream.IntStream;
+
+/**
+ * Набор готовых стратегий поиска.
+ */
+public enum StandardStrategy implements SearchStrategy {
+
+   /**
+    * Стратегия {@link FactoryOptimizationSolver} по умолчанию: большие заказы первыми, фабрики по порядку.
+    */
+   LARGEST_FIRST {
+      @Override
+      public Comparator<Integer> orderComparator(Factory[] factories, int deadline) {
+         return (a, b) -> Integer.compare(b, a);
+      }
+   },
+
+   /**
+    * Большие заказы первыми, для каждого заказа сначала самые дешевые фабрики:
+    * хорошее решение находится раньше, и отсечение по стоимости начинает работать быстрее.
+    */
+   CHEAPEST_FACTORY_FIRST {
+      @Override
+      public Comparator<Integer> orderComparator(Factory[] factories, int deadline) {
+         return (a, b) -> Integer.compare(b, a);
+      }
+
+      @Override
+      public int[] factoryOrder(int orderSize, Factory[] factories) {
+         return sortedFactories(factories, Comparator.comparingInt((Factory f) -> f.costForOrder(orderSize)).thenComparingInt(f -> f.timeForOrder(orderSize)));
+      }
+   },
+
+   /**
+    * Первыми распределяются заказы, которые помещаются на меньшее число фабрик, для каждого заказа
+    * сначала самые быстрые фабрики: тупиковые по дедлайну ветви обнаруживаются раньше.
+    */
+   MOST_CONSTRAINED_FIRST {
+      @Override
+      public Comparator<Integer> orderComparator(Factory[] factories, int deadline) {
+         return Comparator.comparingInt((Integer size) -> (int) IntStream.range(0, factories.length)
+                         .filter(i -> factories[i].timeForOrder(size) <= deadline).count())
+                 .thenComparing((a, b) -> Integer.compare(b, a));
+      }
+
+      @Override
+      public int[] factoryOrder(int orderSize, Factory[] factories) {
+         return sortedFactories(factories, Comparator.comparingInt((Factory f) -> f.timeForOrder(orderSize)).thenComparingInt(f -> f.costForOrder(orderSize)));
+      }
+   },
+
+   /**
+    * Перебор как в решателях из Task1_comments: заказы в исходном порядке, фабрики по порядку,
+    * отсечение только по стоимости и дедлайну.
+    */
+   INPUT_ORDER {
+      @Override
+      public Comparator<Integer> orderComparator(Factory[] factories, int deadline) {
+         return (a, b) -> 0;
+      }
+
+      @Override
+      public boolean usesLowerBounds() {
+         return false;
+      }
+
+      @Override
+      public boolean usesSymmetryBreaking() {
+         return false;
+      }
+   };
+
+   @Override
+   public int[] factoryOrder(int orderSize, Factory[] factories) {
+      return IntStream.range(0, factories.length).toArray();
+   }
+
+   @Override
+   public boolean usesLowerBounds() {
+      return true;
+   }
+
+   @Override
+   public boolean usesSymmetryBreaking() {
+      return true;
+   }
+
+   private static int[] sortedFactories(Factory[] factories, Comparator<Factory> comparator) {
+      return IntStream.range(0, factories.length).boxed()
+              .sorted((i, j) -> comparator.compare(factories[i], factories[j]))
+              .mapToInt(Integer::intValue).toArray();
+   }
+}
@@ -0,0 +1,128 @@
+package Task1_BackTracking;
+
+import java.util.Arrays;
+
+/**
+ * Точный решатель на основе динамического программирования по подмножествам заказов (битовым маскам).
+ * <p>
+ * Для каждой фабрики заранее считаются стоимость и длительность каждого подмножества заказов,
+ * затем фабрики добавляются по одной: best[mask] — минимальная стоимость выполнения заказов из mask
+ * уже рассмотренными фабриками. Время работы O(F * 3^n) не зависит от данных,
+ * поэтому при небольшом количестве заказов решение находится за предсказуемое время.
+ */
+final class SubsetDpSolver {
+
+   // Максимальное количество заказов, при котором маски еще помещаются в память: 2^20 масок — около 30 МБ таблиц.
+   static final int MAX_ORDERS = 20;
+   // Наибольший размер таблицы выбора F * 2^n (int): 64 МБ.
+   static final long MAX_CHOICE_CELLS = 1L << 24;
+   // Верхняя граница объема работы F * 3^n, после которой ДП не запускается вовсе. 1.5e10 пропускает 20 заказов
+   // при 4 фабриках, 19 — при 12, 18 — при 38; при 1.5–3 нс на единицу работы это не больше 30–45 секунд.
+   // Раньше ДП вызывается только после того, как поиск с возвратом исчерпал сравнимый по времени бюджет узлов.
+   static final long WORK_LIMIT = 15_000_000_000L;
+
+   private static final long INF = Long.MAX_VALUE;
+
+   private final int deadline;
+   private final int[] orders;
+   private final Factory[] factories;
+
+   SubsetDpSolver(int deadline, int[] orders, Factory[] factories) {
+      this.deadline = deadline;
+      this.orders = orders;
+      this.factories = factories;
+   }
+
+   /**
+    * Оценка объема работы ДП для задачи такой формы.
+    *
+    * @param orderCount   Количество заказов.
+    * @param factoryCount Количество фабрик.
+    *
+    * @return F * 3^n или -1, если ДП неприменимо (слишком много заказов, работы или памяти).
+    */
+   static long estimatedWork(int orderCount, int factoryCount) {
+      if (orderCount > MAX_ORDERS || factoryCount == 0 || (long) factoryCount << orderCount > MAX_CHOICE_CELLS) {
+         return -1;
+      }
+      long work = factoryCount;
+      for (int k = 0; k < orderCount; k++) {
+         work *= 3;
+         if (work > WORK_LIMIT) {
+            return -1;
+         }
+      }
+      return work;
+   }
+
+   /**
+    * @return Оптимальное распределение (индекс заказа -> индекс фабрики) или null, если решения нет.
+    */
+   Incumbent solve() {
+      int n = orders.length;
+      int full = (1 << n) - 1;
+      int masks = 1 << n;
+
+      long[] best = new long[masks];
+      long[] next = new long[masks];
+      Arrays.fill(best, INF);
+      best[0] = 0;
+
+      int[] subsetDays = new int[masks];
+      long[] subsetCost = new long[masks];
+      // chosen[f][mask] — подмножество заказов, отданное фабрике f в оптимуме для mask.
+      int[][] chosen = new int[factories.length][masks];
+
+      for (int f = 0; f < factories.length; f++) {
+         Factory factory = factories[f];
+
+         // Длительность и стоимость каждого подмножества: маска без младшего бита плюс сам младший заказ.
+         for (int mask = 1; mask < masks; mask++) {
+            int order = orders[Integer.numberOfTrailingZeros(mask)];
+            int rest = mask & (mask - 1);
+            subsetDays[mask] = Math.min(subsetDays[rest] + factory.timeForOrder(order), deadline + 1);
+            subsetCost[mask] = subsetCost[rest] + factory.costForOrder(order);
+         }
+
+         for (int mask = 0; mask < masks; mask++) {
+            // Вариант "фабрика не получает заказов".
+            long value = best[mask];
+            int choice = 0;
+            // Перебор всех непустых подмножеств mask, которые фабрика успевает выполнить к дедлайну.
+            for (int sub = mask; sub != 0; sub = (sub - 1) & mask) {
+               if (subsetDays[sub] <= deadline) {
+                  long rest = best[mask ^ sub];
+                  if (rest != INF && rest + subsetCost[sub] < value) {
+                     value = rest + subsetCost[sub];
+                     choice = sub;
+                  }
+               }
+            }
+            next[mask] = value;
+            chosen[f][mask] = choice;
+         }
+
+         long[] swap = best;
+         best = next;
+         next = swap;
+      }
+
+      if (best[full] == INF) {
+         return null;
+      }
+
+      // Восстановление ответа: идем от последней фабрики к первой и снимаем выбранные подмножества.
+      int[] assignment = new int[n];
+      int mask = full;
+      for (int f = factories.length - 1; f >= 0; f--) {
+         int sub = chosen[f][mask];
+         for (int k = 0; k < n; k++) {
+            if ((sub & (1 << k)) != 0) {
+               assignment[k] = f;
+            }
+         }
+         mask ^= sub;
+      }
+      return new Incumbent(best[full], assignment);
+   }
+}
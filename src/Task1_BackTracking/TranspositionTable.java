@@ -0,0 +1,127 @@
+package Task1_BackTracking;
+
+import java.util.Arrays;
+
+/**
+ * Таблица транспозиций для поиска с возвратом: для состояния (индекс заказа, загрузка фабрик)
+ * хранит наименьшую стоимость, с которой это состояние уже встречалось.
+ * <p>
+ * Оставшаяся подзадача зависит только от состояния, поэтому повторный приход в то же состояние
+ * с не меньшей стоимостью не может дать лучшего решения, и ветвь отсекается сразу.
+ * Таблица с прямой адресацией фиксированного размера: при коллизии старая запись вытесняется новой,
+ * так что память ограничена capacity * 24 байт.
+ * <p>
+ * Хеш загрузок аддитивный (сумма вкладов фабрик), а у сумм бывают структурные совпадения: разные наборы загрузок
+ * с одинаковой суммой вкладов. Ложное совпадение отсекло бы ветвь с оптимумом, поэтому запись хранит еще и
+ * проверочный ключ — независимый хеш, который собирается через XOR вкладов с другим перемешиванием.
+ * Ветвь отсекается, только если совпали оба ключа.
+ */
+final class TranspositionTable {
+
+   private static final long EMPTY = 0;
+   // Затравка проверочного хеша: отличает его перемешивание от основного.
+   private static final long CHECK_SEED = 0x9E3779B97F4A7C15L;
+
+   private final long[] keys;
+   private final long[] checks;
+   private final long[] costs;
+   private final int mask;
+
+   private long hits;
+   private long misses;
+
+   /**
+    * @param capacity Максимальное количество записей (округляется вниз до степени двойки).
+    */
+   TranspositionTable(int capacity) {
+      int size = Integer.highestOneBit(Math.max(2, capacity));
+      this.keys = new long[size];
+      this.checks = new long[size];
+      this.costs = new long[size];
+      this.mask = size - 1;
+   }
+
+   /**
+    * Хеш-вклад одной фабрики с заданной загрузкой. Хеш состояния — сумма вкладов всех фабрик,
+    * поэтому при изменении загрузки одной фабрики он обновляется за O(1).
+    */
+   static long factoryHash(int factoryIndex, int days) {
+      return mix(((long) factoryIndex << 32) ^ days);
+   }
+
+   /**
+    * Вклад одной фабрики в проверочный ключ. Проверочный ключ — XOR вкладов всех фабрик,
+    * он тоже обновляется за O(1), но не зависит от {@link #factoryHash}.
+    */
+   static long factoryCheck(int factoryIndex, int days) {
+      return mix(mix(((long) days << 32) ^ factoryIndex) ^ CHECK_SEED);
+   }
+
+   /**
+    * Ключ состояния из хеша загрузок и дополнительных параметров узла.
+    */
+   static long key(long loadsHash, int orderIndex, int firstFactory) {
+      long key = loadsHash ^ mix(((long) orderIndex << 32) ^ firstFactory ^ 0x5DEECE66DL);
+      return key == EMPTY ? 1 : key;
+   }
+
+   /**
+    * Проверочный ключ состояния из XOR-хеша загрузок и дополнительных параметров узла.
+    */
+   static long check(long loadsCheck, int orderIndex, int firstFactory) {
+      return loadsCheck ^ mix(mix(((long) firstFactory << 32) ^ orderIndex) ^ CHECK_SEED);
+   }
+
+   /**
+    * Проверяет состояние и запоминает его стоимость.
+    *
+    * @param key   Ключ состояния ({@link #key}).
+    * @param check Проверочный ключ того же состояния ({@link #check}).
+    * @return true, если состояние уже встречалось с не большей стоимостью и ветвь можно отсечь.
+    */
+   boolean isDominated(long key, long check, long cost) {
+      int slot = (int) (key ^ (key >>> 32)) & mask;
+      if (keys[slot] == key && checks[slot] == check) {
+         if (costs[slot] <= cost) {
+            hits++;
+            return true;
+         }
+         costs[slot] = cost;
+         misses++;
+         return false;
+      }
+      keys[slot] = key;
+      checks[slot] = check;
+      costs[slot] = cost;
+      misses++;
+      return false;
+   }
+
+   /**
+    * Очищает таблицу перед новым запуском поиска (счетчики тоже сбрасываются).
+    */
+   void clear() {
+      Arrays.fill(keys, EMPTY);
+      hits = 0;
+      misses = 0;
+   }
+
+   long hits() {
+      return hits;
+   }
+
+   long misses() {
+      return misses;
+   }
+
+   int capacity() {
+      return keys.length;
+   }
+
+   // Перемешивание битов из SplitMix64.
+   private static long mix(long z) {
+      z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+      z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+      return z ^ (z >>> 33);
+   }
+}
@@ -0,0 +1,306 @@
+package Task2_DynamicProgramming;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Колоночный движок задачи о взвешенных интервалах для миллионов билетов.
+ * <p>
+ * Билеты хранятся не списком записей, а параллельными массивами int[] (начало, конец, матчи).
+ * Индексы билетов сортируются по дню окончания поразрядной сортировкой (LSD radix sort) —
+ * без компараторов и упаковки чисел, устойчиво для равных endDay и за линейное время.
+ * Предшественники всех билетов находятся за один проход экспоненциальным и бинарным поиском назад
+ * от текущего билета (предшественник обычно недалеко, поэтому поиск почти не выходит из кеша)
+ * и затем повторно используются при восстановлении ответа. Итого не более O(n log n) времени и O(n) памяти
+ * без создания объектов на каждый билет.
+ * <p>
+ * Если разброс дней D невелик по сравнению с количеством билетов (дни турнира — небольшие числа),
+ * движок переключается на индекс по дням: сортировка подсчетом по endDay за один проход,
+ * а счетчики "сколько билетов закончилось до дня d" сразу дают предшественника любого билета за O(1).
+ * Это та же формула best[d] = max(best[d - 1], best[start - 1] + matches), записанная по билетам,
+ * и весь расчет занимает O(n + D) времени и памяти.
+ */
+public class ColumnarTicketSolver {
+
+   // Ширина разряда поразрядной сортировки в битах.
+   private static final int RADIX_BITS = 11;
+   // Индекс по дням используется, пока массив по дням не больше нескольких массивов по билетам.
+   private static final int DAYS_PER_TICKET = 4;
+   private static final int MIN_DAY_INDEX = 1 << 12;
+
+   // Столбцы в порядке сортировки по дню окончания; sourceIndex[i] — индекс билета во входных данных.
+   private final int[] startDay;
+   private final int[] endDay;
+   private final int[] matches;
+   private final int[] sourceIndex;
+
+   // previous[i] — последний билет (в порядке сортировки), который заканчивается до начала i-го, или -1.
+   private final int[] previous;
+   // maxMatchesUpTo[i] — оптимум для первых i + 1 билетов в порядке сортировки.
+   private final int[] maxMatchesUpTo;
+   // true, если предшественники найдены по индексу дней, а не поиском.
+   private final boolean dayIndexed;
+
+   /**
+    * @param startDays Дни начала билетов.
+    * @param endDays   Дни окончания билетов.
+    * @param matches   Количество матчей по каждому билету.
+    */
+   public ColumnarTicketSolver(int[] startDays, int[] endDays, int[] matches) {
+      int n = startDays.length;
+      if (endDays.length != n || matches.length != n) {
+         throw new IllegalArgumentException("Столбцы билетов должны быть одной длины");
+      }
+
+      int minEnd = Integer.MAX_VALUE;
+      int maxEnd = Integer.MIN_VALUE;
+      for (int day : endDays) {
+         minEnd = Math.min(minEnd, day);
+         maxEnd = Math.max(maxEnd, day);
+      }
+      long span = n == 0 ? 0 : (long) maxEnd - minEnd;
+      this.dayIndexed = span <= Math.max(MIN_DAY_INDEX, (long) DAYS_PER_TICKET * n);
+
+      // 1. Устойчивая сортировка индексов по дню окончания: при равных endDay сохраняется входной порядок.
+      // endsBefore[d] — количество билетов, закончившихся раньше дня minEnd + d (только для индекса по дням).
+      int[] endsBefore = dayIndexed ? new int[(int) span + 2] : null;
+      int[] order = dayIndexed ? countingSortByEndDay(endDays, minEnd, endsBefore) : radixSortByEndDay(endDays, minEnd, span);
+
+      this.startDay = new int[n];
+      this.endDay = new int[n];
+      this.matches = new int[n];
+      this.sourceIndex = new int[n];
+      for (int i = 0; i < n; i++) {
+         int source = order[i];
+         sourceIndex[i] = source;
+         startDay[i] = startDays[source];
+         endDay[i] = endDays[source];
+         this.matches[i] = matches[source];
+      }
+
+      // 2. Предшественники: билеты, закончившиеся до начала i-го, образуют префикс отсортированного массива.
+      this.previous = new int[n];
+      for (int i = 0; i < n; i++) {
+         if (dayIndexed) {
+            long day = Math.min(Math.max((long) startDay[i] - minEnd, 0), span + 1);
+            previous[i] = Math.min(endsBefore[(int) day], i) - 1;
+         }
+         else {
+            previous[i] = lastEndingBefore(startDay[i], i);
+         }
+      }
+
+      // 3. Та же рекуррентная формула, что и в SumoTournamentSolver, но по примитивным столбцам.
+      this.maxMatchesUpTo = new int[n];
+      for (int i = 0; i < n; i++) {
+         int takeCurrent = this.matches[i];
+         if (previous[i] != -1) {
+            takeCurrent += maxMatchesUpTo[previous[i]];
+         }
+         maxMatchesUpTo[i] = i == 0 ? takeCurrent : Math.max(takeCurrent, maxMatchesUpTo[i - 1]);
+      }
+   }
+
+   /**
+    * Строит движок по списку билетов (сам список не изменяется).
+    */
+   public static ColumnarTicketSolver of(List<Ticket> tickets) {
+      int n = tickets.size();
+      int[] starts = new int[n];
+      int[] ends = new int[n];
+      int[] matches = new int[n];
+      for (int i = 0; i < n; i++) {
+         Ticket ticket = tickets.get(i);
+         starts[i] = ticket.startDay();
+         ends[i] = ticket.endDay();
+         matches[i] = ticket.matches();
+      }
+      return new ColumnarTicketSolver(starts, ends, matches);
+   }
+
+   public static void main(String[] args) {
+      Random rand = new Random(42);
+      int n = 10_000_000;
+      int[] starts = new int[n];
+      int[] ends = new int[n];
+      int[] matches = new int[n];
+      for (int i = 0; i < n; i++) {
+         starts[i] = rand.nextInt(1_000_000) + 1;
+         ends[i] = starts[i] + rand.nextInt(30) + 1;
+         matches[i] = rand.nextInt(15) + 1;
+      }
+
+      long startedAt = System.nanoTime();
+      ColumnarTicketSolver solver = new ColumnarTicketSolver(starts, ends, matches);
+      int[] chosen = solver.chosenIndices();
+      long elapsedMs = (System.nanoTime() - startedAt) / 1_000_000;
+
+      System.out.println("--- Колоночный движок ---");
+      System.out.println("Билетов: " + n + (solver.isDayIndexed() ? " (индекс по дням)" : " (поиск предшественников)"));
+      System.out.println("Максимальное количество матчей: " + solver.maxMatches());
+      System.out.println("Выбрано билетов: " + chosen.length + " (за " + elapsedMs + " мс)");
+   }
+
+   /**
+    * @return Максимальное количество матчей (0, если билетов нет).
+    */
+   public int maxMatches() {
+      return maxMatchesUpTo.length == 0 ? 0 : maxMatchesUpTo[maxMatchesUpTo.length - 1];
+   }
+
+   /**
+    * @return true, если разброс дней мал и использован индекс по дням (O(n + D)), false — поиск предшественников.
+    */
+   public boolean isDayIndexed() {
+      return dayIndexed;
+   }
+
+   /**
+    * Восстановление ответа по сохраненным предшественникам, без повторного поиска.
+    *
+    * @return Индексы выбранных билетов во входных данных, по возрастанию дня окончания.
+    */
+   public int[] chosenIndices() {
+      int[] chosen = new int[maxMatchesUpTo.length];
+      int count = 0;
+      int i = maxMatchesUpTo.length - 1;
+      while (i >= 0) {
+         if (i == 0) {
+            if (maxMatchesUpTo[0] > 0) {
+               chosen[count++] = sourceIndex[0];
+            }
+            break;
+         }
+         // Билет выбран, если без него оптимум для первых i + 1 билетов не достигается.
+         if (maxMatchesUpTo[i] > maxMatchesUpTo[i - 1]) {
+            chosen[count++] = sourceIndex[i];
+            i = previous[i];
+         }
+         else {
+            i--;
+         }
+      }
+
+      // Билеты собирались с конца, разворачиваем.
+      int[] result = new int[count];
+      for (int k = 0; k < count; k++) {
+         result[k] = chosen[count - 1 - k];
+      }
+      return result;
+   }
+
+   /**
+    * Формирует результат в виде записей исходного списка.
+    *
+    * @param tickets Тот же список, по которому построен движок.
+    */
+   public SchedulingResult toResult(List<Ticket> tickets) {
+      List<Ticket> chosenTickets = new ArrayList<>();
+      for (int index : chosenIndices()) {
+         chosenTickets.add(tickets.get(index));
+      }
+      return new SchedulingResult(maxMatches(), chosenTickets);
+   }
+
+   /**
+    * Сортировка подсчетом по дню окончания (один проход по билетам и один по дням).
+    *
+    * @param endsBefore Заполняется количеством билетов, закончившихся раньше каждого дня.
+    */
+   private static int[] countingSortByEndDay(int[] endDays, int minEnd, int[] endsBefore) {
+      int n = endDays.length;
+      for (int day : endDays) {
+         endsBefore[day - minEnd + 1]++;
+      }
+      for (int d = 1; d < endsBefore.length; d++) {
+         endsBefore[d] += endsBefore[d - 1];
+      }
+      int[] order = new int[n];
+      int[] next = Arrays.copyOf(endsBefore, endsBefore.length);
+      for (int i = 0; i < n; i++) {
+         order[next[endDays[i] - minEnd]++] = i;
+      }
+      return order;
+   }
+
+   // --- Доступ к таблице ДП для других движков пакета (только чтение) ---
+
+   int[] sourceIndices() {
+      return sourceIndex;
+   }
+
+   int[] previousIndices() {
+      return previous;
+   }
+
+   int[] sortedMatches() {
+      return matches;
+   }
+
+   int[] prefixOptimum() {
+      return maxMatchesUpTo;
+   }
+
+   /**
+    * Поразрядная сортировка индексов по дню окончания. Количество проходов зависит от разброса дней:
+    * для турнира в пределах 2048 дней хватает одного прохода.
+    */
+   private static int[] radixSortByEndDay(int[] endDays, int minEnd, long span) {
+      int n = endDays.length;
+      int[] order = new int[n];
+      for (int i = 0; i < n; i++) {
+         order[i] = i;
+      }
+      int[] buffer = new int[n];
+      int[] counts = new int[(1 << RADIX_BITS) + 1];
+      int mask = (1 << RADIX_BITS) - 1;
+      for (int shift = 0; shift == 0 || span >>> shift != 0; shift += RADIX_BITS) {
+         Arrays.fill(counts, 0);
+         for (int i = 0; i < n; i++) {
+            counts[(int) (((long) endDays[i] - minEnd) >>> shift & mask) + 1]++;
+         }
+         for (int digit = 0; digit < mask + 1; digit++) {
+            counts[digit + 1] += counts[digit];
+         }
+         for (int i = 0; i < n; i++) {
+            int index = order[i];
+            buffer[counts[(int) (((long) endDays[index] - minEnd) >>> shift & mask)]++] = index;
+         }
+         int[] swap = order;
+         order = buffer;
+         buffer = swap;
+      }
+      return order;
+   }
+
+   /**
+    * Поиск последнего билета среди первых limit, который заканчивается строго до дня day.
+    * Сначала экспоненциальный шаг назад от limit - 1 находит отрезок с ответом, затем бинарный поиск внутри него.
+    */
+   private int lastEndingBefore(int day, int limit) {
+      int high = limit - 1;
+      int low = high;
+      int step = 1;
+      while (low >= 0 && endDay[low] >= day) {
+         high = low - 1;
+         low -= step;
+         step <<= 1;
+      }
+      // Здесь endDay[low] < day (если low >= 0), а все билеты после high заканчиваются не раньше day.
+      low = Math.max(low, 0);
+      int found = -1;
+      while (low <= high) {
+         int middle = (low + high) >>> 1;
+         if (endDay[middle] < day) {
+            found = middle;
+            low = middle + 1;
+         }
+         else {
+            high = middle - 1;
+         }
+      }
+      return found;
+   }
+}
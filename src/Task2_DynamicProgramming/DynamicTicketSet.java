@@ -0,0 +1,122 @@
+package Task2_DynamicProgramming;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Полностью динамический набор билетов: добавление, отмена по id и запрос оптимума.
+ * <p>
+ * Билеты хранятся в {@link MaxPlusDayTree} — дереве по сжатым дням окончания, узлы которого хранят композицию
+ * переходов ДП своих дней в (max, +)-алгебре. Диапазон дней заранее не задается.
+ * <ul>
+ *    <li>Добавление и отмена пересчитывают матрицы только на пути к корню: O(K^3 log D), где K — длина самого
+ *    длинного билета в днях, а D — количество различных дней окончания. Это верно и для отмены билета,
+ *    от которого зависит вся цепочка оптимума.</li>
+ *    <li>{@link #maxMatches()} работает за O(1), {@link #schedule()} — за O(D * K + n).</li>
+ * </ul>
+ * Оценка полилогарифмическая только для билетов ограниченной длины: билеты длиннее maxTicketDays не принимаются.
+ */
+public class DynamicTicketSet {
+
+   private final MaxPlusDayTree tree;
+   private final Map<Integer, Ticket> ticketById = new HashMap<>();
+
+   public DynamicTicketSet() {
+      this(MaxPlusDayTree.DEFAULT_MAX_TICKET_DAYS);
+   }
+
+   /**
+    * @param maxTicketDays Наибольшая длина билета в днях.
+    */
+   public DynamicTicketSet(int maxTicketDays) {
+      this.tree = new MaxPlusDayTree(maxTicketDays);
+   }
+
+   public static void main(String[] args) {
+      Random rand = new Random(42);
+      int days = 400;
+      DynamicTicketSet set = new DynamicTicketSet();
+      int issued = 0;
+      for (; issued < 100_000; issued++) {
+         int start = rand.nextInt(days) + 1;
+         set.insert(new Ticket(issued, start, Math.min(days, start + rand.nextInt(5)), rand.nextInt(15) + 1));
+      }
+      System.out.println("--- Динамический набор билетов ---");
+      System.out.println("Билетов: " + set.size() + ", максимум матчей: " + set.maxMatches());
+
+      // Шторм отмен и перевыпусков с одним запросом в конце.
+      long startedAt = System.nanoTime();
+      for (int operation = 0; operation < 100_000; operation++) {
+         set.cancel(rand.nextInt(issued));
+         int start = rand.nextInt(days) + 1;
+         set.insert(new Ticket(issued++, start, Math.min(days, start + rand.nextInt(5)), rand.nextInt(15) + 1));
+      }
+      int afterStorm = set.maxMatches();
+      System.out.println("100000 отмен и перевыпусков, затем запрос: " + (System.nanoTime() - startedAt) / 1_000_000 + " мс, максимум матчей: " + afterStorm);
+
+      // Тот же шторм, но после каждой операции запрашивается оптимум.
+      startedAt = System.nanoTime();
+      for (int operation = 0; operation < 100_000; operation++) {
+         set.cancel(rand.nextInt(issued));
+         int start = rand.nextInt(days) + 1;
+         set.insert(new Ticket(issued++, start, Math.min(days, start + rand.nextInt(5)), rand.nextInt(15) + 1));
+         set.maxMatches();
+      }
+      long elapsedMs = (System.nanoTime() - startedAt) / 1_000_000;
+      System.out.println("100000 отмен и перевыпусков с запросом после каждой: " + elapsedMs + " мс");
+      System.out.println("Билетов: " + set.size() + ", максимум матчей: " + set.maxMatches());
+   }
+
+   /**
+    * Добавляет билет.
+    *
+    * @param ticket Билет с уникальным id не длиннее maxTicketDays дней.
+    */
+   public void insert(Ticket ticket) {
+      if (ticketById.containsKey(ticket.id())) {
+         throw new IllegalArgumentException("Билет с id " + ticket.id() + " уже есть в наборе");
+      }
+      tree.add(ticket);
+      ticketById.put(ticket.id(), ticket);
+   }
+
+   /**
+    * Отменяет билет.
+    *
+    * @param ticketId Идентификатор билета.
+    *
+    * @return true, если билет был в наборе.
+    */
+   public boolean cancel(int ticketId) {
+      Ticket ticket = ticketById.remove(ticketId);
+      if (ticket == null) {
+         return false;
+      }
+      tree.remove(ticket);
+      return true;
+   }
+
+   /**
+    * @return Максимальное количество матчей по текущему набору билетов.
+    */
+   public int maxMatches() {
+      return tree.maxMatches();
+   }
+
+   /**
+    * @return Количество билетов в наборе.
+    */
+   public int size() {
+      return ticketById.size();
+   }
+
+   /**
+    * Восстанавливает оптимальный набор билетов.
+    *
+    * @return Максимальное количество матчей и выбранные билеты по возрастанию дня окончания.
+    */
+   public SchedulingResult schedule() {
+      return tree.schedule(ticketById.values());
+   }
+}
@@ -0,0 +1,486 @@
+package Task2_DynamicProgramming;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Решение задачи для файлов билетов, которые не помещаются в кучу.
+ * <p>
+ * Формат входа — строки фиксированной ширины по 16 байт: id, startDay, endDay, matches (int, big-endian).
+ * <ol>
+ *    <li>Внешняя сортировка: файл читается через FileChannel кусками по chunkRows строк, каждый кусок
+ *    сортируется по дню окончания и записывается во временный файл-серию.</li>
+ *    <li>Серии сливаются k-путевым слиянием, и строки в порядке окончания сразу поступают в ДП.
+ *    За один проход сливается не больше fanIn серий: если серий больше, группы по fanIn серий сначала
+ *    сливаются в новые серии, и так, пока их не останется не больше fanIn (log_fanIn(серий) проходов).
+ *    Каждая серия читается через свой буфер; буферы всех серий прохода вместе не больше одного куска.</li>
+ *    <li>ДП хранит состояние только для различных дней окончания: оптимум, билет, который его дает, и день начала
+ *    этого билета. Этого достаточно и для ответа, и для восстановления выбранных билетов.</li>
+ *    <li>Идентификаторы выбранных билетов записываются в выходной файл через NIO (int, big-endian).</li>
+ * </ol>
+ * Память на сортировку и слияние — один кусок плюс O(fanIn) на курсоры и кучу; она не зависит ни от количества строк,
+ * ни от количества серий. Таблица ДП хранит 21 байт на каждый различный день окончания: она растет
+ * с диапазоном дней, а не с количеством билетов.
+ * Файлы не отображаются в память, поэтому временные серии и входной файл можно удалить сразу после решения
+ * (на Windows отображенный файл удалить нельзя, пока отображение не собрано сборщиком мусора).
+ */
+public class ExternalTicketSolver {
+
+   // Размер строки файла в байтах: четыре int.
+   static final int ROW_BYTES = 16;
+   // Наибольший буфер курсора серии в строках: больше не нужно, чтобы чтение шло крупными блоками.
+   private static final int CURSOR_ROWS = 4096;
+   // Наибольшее количество серий, сливаемых за один проход.
+   static final int MAX_FAN_IN = 128;
+
+   private final int chunkRows;
+   private final int fanIn;
+
+   public ExternalTicketSolver() {
+      this(1 << 20);
+   }
+
+   /**
+    * @param chunkRows Количество строк в одной серии внешней сортировки (определяет память на сортировку).
+    */
+   public ExternalTicketSolver(int chunkRows) {
+      this(chunkRows, MAX_FAN_IN);
+   }
+
+   /**
+    * @param chunkRows Количество строк в одной серии внешней сортировки (определяет память на сортировку).
+    * @param fanIn     Наибольшее количество серий, сливаемых за один проход (не меньше 2).
+    */
+   public ExternalTicketSolver(int chunkRows, int fanIn) {
+      if (chunkRows <= 0 || (long) chunkRows * ROW_BYTES > Integer.MAX_VALUE) {
+         throw new IllegalArgumentException("Недопустимый размер серии: " + chunkRows);
+      }
+      if (fanIn < 2) {
+         throw new IllegalArgumentException("За проход нужно сливать хотя бы две серии: " + fanIn);
+      }
+      this.chunkRows = chunkRows;
+      this.fanIn = fanIn;
+   }
+
+   public static void main(String[] args) throws IOException {
+      Path input = Files.createTempFile("tickets", ".bin");
+      Path output = Files.createTempFile("chosen", ".bin");
+      try {
+         int rows = 4_000_000;
+         Random rand = new Random(42);
+         try (FileChannel channel = FileChannel.open(input, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(ROW_BYTES * 4096);
+            for (int i = 0; i < rows; i++) {
+               int start = rand.nextInt(100_000) + 1;
+               buffer.putInt(i).putInt(start).putInt(start + rand.nextInt(7)).putInt(rand.nextInt(15) + 1);
+               if (!buffer.hasRemaining()) {
+                  buffer.flip();
+                  channel.write(buffer);
+                  buffer.clear();
+               }
+            }
+            buffer.flip();
+            channel.write(buffer);
+         }
+
+         long startedAt = System.nanoTime();
+         long maxMatches = new ExternalTicketSolver(1 << 18).solve(input, output);
+         long elapsedMs = (System.nanoTime() - startedAt) / 1_000_000;
+
+         System.out.println("--- Решение по файлу билетов ---");
+         System.out.println("Строк: " + rows + ", размер файла: " + Files.size(input) / (1 << 20) + " МБ");
+         System.out.println("Максимальное количество матчей: " + maxMatches + " (за " + elapsedMs + " мс)");
+         System.out.println("Выбрано билетов: " + Files.size(output) / Integer.BYTES);
+
+         // Мелкие серии: около тысячи серий сливаются в два прохода.
+         startedAt = System.nanoTime();
+         long smallChunks = new ExternalTicketSolver(1 << 12).solve(input, output);
+         elapsedMs = (System.nanoTime() - startedAt) / 1_000_000;
+         System.out.println("Серии по 4096 строк, слияние не больше " + MAX_FAN_IN + " серий за проход: " + smallChunks + " (за " + elapsedMs + " мс)");
+      }
+      finally {
+         Files.deleteIfExists(input);
+         Files.deleteIfExists(output);
+      }
+   }
+
+   /**
+    * @param ticketFile    Файл билетов (строки по 16 байт).
+    * @param chosenIdsFile Файл, в который записываются id выбранных билетов по возрастанию дня окончания.
+    *
+    * @return Максимальное количество матчей.
+    */
+   public long solve(Path ticketFile, Path chosenIdsFile) throws IOException {
+      Path workDirectory = Files.createTempDirectory("ticket-runs");
+      try {
+         List<Path> runs = new ArrayList<>();
+         sortRuns(ticketFile, workDirectory, runs);
+         while (runs.size() > fanIn) {
+            runs = mergePass(runs, workDirectory);
+         }
+         DayTable table = new DayTable();
+         mergeRuns(runs, table);
+         table.writeChosen(chosenIdsFile);
+         return table.maxMatches();
+      }
+      finally {
+         // Удаляются все серии, включая промежуточные, оставшиеся после ошибки посреди прохода.
+         try (Stream<Path> files = Files.list(workDirectory)) {
+            for (Path run : (Iterable<Path>) files::iterator) {
+               Files.deleteIfExists(run);
+            }
+         }
+         Files.deleteIfExists(workDirectory);
+      }
+   }
+
+   /**
+    * Шаг 1: сортировка кусков входного файла. Куски читаются по позиции в файле (long),
+    * поэтому файл может быть больше 2 ГБ. Внутри куска сортировка устойчива (ключ: день окончания, номер строки).
+    * Один и тот же буфер служит и для чтения куска, и для записи отсортированной серии.
+    */
+   private void sortRuns(Path ticketFile, Path workDirectory, List<Path> runs) throws IOException {
+      int[] ids = new int[chunkRows];
+      int[] starts = new int[chunkRows];
+      int[] ends = new int[chunkRows];
+      int[] matches = new int[chunkRows];
+      long[] keys = new long[chunkRows];
+      ByteBuffer buffer = ByteBuffer.allocateDirect(chunkRows * ROW_BYTES);
+
+      try (FileChannel in = FileChannel.open(ticketFile, StandardOpenOption.READ)) {
+         long size = in.size();
+         if (size % ROW_BYTES != 0) {
+            throw new IllegalArgumentException("Размер файла билетов не кратен " + ROW_BYTES + " байтам: " + size);
+         }
+         long rows = size / ROW_BYTES;
+         for (long first = 0; first < rows; first += chunkRows) {
+            int count = (int) Math.min(chunkRows, rows - first);
+            buffer.clear().limit(count * ROW_BYTES);
+            while (buffer.hasRemaining()) {
+               if (in.read(buffer, first * ROW_BYTES + buffer.position()) == -1) {
+                  throw new EOFException("Файл билетов укоротился во время чтения: " + ticketFile);
+               }
+            }
+            buffer.flip();
+            for (int i = 0; i < count; i++) {
+               ids[i] = buffer.getInt();
+               starts[i] = buffer.getInt();
+               ends[i] = buffer.getInt();
+               matches[i] = buffer.getInt();
+               keys[i] = (long) ends[i] << 32 | i;
+            }
+            Arrays.sort(keys, 0, count);
+
+            buffer.clear();
+            for (int k = 0; k < count; k++) {
+               int i = (int) keys[k];
+               buffer.putInt(ids[i]).putInt(starts[i]).putInt(ends[i]).putInt(matches[i]);
+            }
+            buffer.flip();
+            Path run = Files.createTempFile(workDirectory, "run", ".bin");
+            runs.add(run);
+            try (FileChannel channel = FileChannel.open(run, StandardOpenOption.WRITE)) {
+               while (buffer.hasRemaining()) {
+                  channel.write(buffer);
+               }
+            }
+         }
+      }
+   }
+
+   /**
+    * Промежуточный проход: соседние группы по fanIn серий сливаются в новые серии, слитые серии удаляются.
+    * Группы идут по порядку, поэтому порядок строк с равным днем окончания сохраняется.
+    */
+   private List<Path> mergePass(List<Path> runs, Path workDirectory) throws IOException {
+      List<Path> merged = new ArrayList<>();
+      for (int from = 0; from < runs.size(); from += fanIn) {
+         List<Path> group = runs.subList(from, Math.min(runs.size(), from + fanIn));
+         if (group.size() == 1) {
+            merged.add(group.get(0));
+            continue;
+         }
+         Path run = Files.createTempFile(workDirectory, "run", ".bin");
+         merged.add(run);
+         try (RunWriter writer = new RunWriter(run)) {
+            mergeRuns(group, writer);
+         }
+         for (Path done : group) {
+            Files.delete(done);
+         }
+      }
+      return merged;
+   }
+
+   /**
+    * Шаг 2: k-путевое слияние не больше fanIn серий. Куча курсоров упорядочена по (день окончания, номер серии),
+    * поэтому при равных днях сохраняется порядок строк во входном файле.
+    * Буфер курсора — не больше CURSOR_ROWS строк и не больше chunkRows / k, так что все буферы вместе не больше одного куска.
+    */
+   private void mergeRuns(List<Path> runs, RowSink sink) throws IOException {
+      int k = runs.size();
+      int bufferRows = Math.max(1, Math.min(CURSOR_ROWS, chunkRows / Math.max(1, k)));
+      RunCursor[] cursors = new RunCursor[k];
+      try {
+         // Куча номеров серий; ключ — день окончания текущей строки серии.
+         int[] heap = new int[k];
+         int size = 0;
+         for (int r = 0; r < k; r++) {
+            cursors[r] = new RunCursor(runs.get(r), bufferRows);
+            if (cursors[r].next()) {
+               heap[size] = r;
+               siftUp(heap, size++, cursors);
+            }
+         }
+         while (size > 0) {
+            RunCursor cursor = cursors[heap[0]];
+            sink.accept(cursor.id, cursor.startDay, cursor.endDay, cursor.matches);
+            if (!cursor.next()) {
+               heap[0] = heap[--size];
+            }
+            siftDown(heap, size, cursors);
+         }
+      }
+      finally {
+         for (RunCursor cursor : cursors) {
+            if (cursor != null) {
+               cursor.close();
+            }
+         }
+      }
+   }
+
+   private static boolean before(int a, int b, RunCursor[] cursors) {
+      int endA = cursors[a].endDay;
+      int endB = cursors[b].endDay;
+      return endA != endB ? endA < endB : a < b;
+   }
+
+   private static void siftUp(int[] heap, int i, RunCursor[] cursors) {
+      while (i > 0 && before(heap[i], heap[(i - 1) >>> 1], cursors)) {
+         int parent = (i - 1) >>> 1;
+         int swap = heap[i];
+         heap[i] = heap[parent];
+         heap[parent] = swap;
+         i = parent;
+      }
+   }
+
+   private static void siftDown(int[] heap, int size, RunCursor[] cursors) {
+      int i = 0;
+      while (2 * i + 1 < size) {
+         int child = 2 * i + 1;
+         if (child + 1 < size && before(heap[child + 1], heap[child], cursors)) {
+            child++;
+         }
+         if (!before(heap[child], heap[i], cursors)) {
+            break;
+         }
+         int swap = heap[i];
+         heap[i] = heap[child];
+         heap[child] = swap;
+         i = child;
+      }
+   }
+
+   /**
+    * Получатель строк, слитых в порядке дня окончания: новая серия или таблица ДП.
+    */
+   private interface RowSink {
+      void accept(int id, int startDay, int endDay, int matches) throws IOException;
+   }
+
+   /**
+    * Запись серии промежуточного прохода через буфер в CURSOR_ROWS строк.
+    */
+   private static final class RunWriter implements RowSink, Closeable {
+      private final FileChannel channel;
+      private final ByteBuffer buffer = ByteBuffer.allocate(CURSOR_ROWS * ROW_BYTES);
+
+      RunWriter(Path run) throws IOException {
+         this.channel = FileChannel.open(run, StandardOpenOption.WRITE);
+      }
+
+      @Override
+      public void accept(int id, int startDay, int endDay, int matches) throws IOException {
+         if (!buffer.hasRemaining()) {
+            flush();
+         }
+         buffer.putInt(id).putInt(startDay).putInt(endDay).putInt(matches);
+      }
+
+      private void flush() throws IOException {
+         buffer.flip();
+         while (buffer.hasRemaining()) {
+            channel.write(buffer);
+         }
+         buffer.clear();
+      }
+
+      @Override
+      public void close() throws IOException {
+         try {
+            flush();
+         }
+         finally {
+            channel.close();
+         }
+      }
+   }
+
+   /**
+    * Курсор серии: последовательное чтение через канал в буфер фиксированного размера.
+    * Поля id, startDay, endDay, matches — текущая строка после успешного {@link #next()}.
+    */
+   private static final class RunCursor implements Closeable {
+      private final FileChannel channel;
+      private final ByteBuffer buffer;
+      int id;
+      int startDay;
+      int endDay;
+      int matches;
+
+      RunCursor(Path run, int bufferRows) throws IOException {
+         this.channel = FileChannel.open(run, StandardOpenOption.READ);
+         this.buffer = ByteBuffer.allocate(bufferRows * ROW_BYTES);
+         buffer.limit(0);
+      }
+
+      /**
+       * @return false, если серия закончилась.
+       */
+      boolean next() throws IOException {
+         if (buffer.remaining() < ROW_BYTES) {
+            buffer.compact();
+            // Дочитываем буфер целиком: канал может вернуть меньше запрошенного.
+            while (buffer.hasRemaining()) {
+               if (channel.read(buffer) == -1) {
+                  break;
+               }
+            }
+            buffer.flip();
+            if (buffer.remaining() < ROW_BYTES) {
+               return false;
+            }
+         }
+         id = buffer.getInt();
+         startDay = buffer.getInt();
+         endDay = buffer.getInt();
+         matches = buffer.getInt();
+         return true;
+      }
+
+      @Override
+      public void close() throws IOException {
+         channel.close();
+      }
+   }
+
+   /**
+    * Шаг 3: ДП по различным дням окончания. best[d] — оптимум для билетов, закончившихся не позже days[d];
+    * если оптимум в этот день дает билет, запоминаются его id и день начала.
+    */
+   private static final class DayTable implements RowSink {
+      private int[] days = new int[1024];
+      private long[] best = new long[1024];
+      private int[] choiceId = new int[1024];
+      private int[] choiceStart = new int[1024];
+      private boolean[] closedByTicket = new boolean[1024];
+      private int size;
+
+      @Override
+      public void accept(int id, int startDay, int endDay, int matches) {
+         if (size == 0 || days[size - 1] != endDay) {
+            if (size == days.length) {
+               int capacity = size * 2;
+               days = Arrays.copyOf(days, capacity);
+               best = Arrays.copyOf(best, capacity);
+               choiceId = Arrays.copyOf(choiceId, capacity);
+               choiceStart = Arrays.copyOf(choiceStart, capacity);
+               closedByTicket = Arrays.copyOf(closedByTicket, capacity);
+            }
+            days[size] = endDay;
+            best[size] = size == 0 ? 0 : best[size - 1];
+            closedByTicket[size] = false;
+            size++;
+         }
+         int previous = lastDayBefore(startDay, size - 1);
+         long candidate = (previous == -1 ? 0 : best[previous]) + matches;
+         if (candidate > best[size - 1]) {
+            best[size - 1] = candidate;
+            choiceId[size - 1] = id;
+            choiceStart[size - 1] = startDay;
+            closedByTicket[size - 1] = true;
+         }
+      }
+
+      long maxMatches() {
+         return size == 0 ? 0 : best[size - 1];
+      }
+
+      void writeChosen(Path chosenIdsFile) throws IOException {
+         int[] chosen = new int[16];
+         int count = 0;
+         int d = size - 1;
+         while (d >= 0) {
+            if (closedByTicket[d]) {
+               if (count == chosen.length) {
+                  chosen = Arrays.copyOf(chosen, count * 2);
+               }
+               chosen[count++] = choiceId[d];
+               d = lastDayBefore(choiceStart[d], d);
+            }
+            else {
+               d--;
+            }
+         }
+
+         ByteBuffer buffer = ByteBuffer.allocate(4096 * Integer.BYTES);
+         try (FileChannel channel = FileChannel.open(chosenIdsFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (int k = count - 1; k >= 0; k--) {
+               buffer.putInt(chosen[k]);
+               if (!buffer.hasRemaining()) {
+                  buffer.flip();
+                  while (buffer.hasRemaining()) {
+                     channel.write(buffer);
+                  }
+                  buffer.clear();
+               }
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+               channel.write(buffer);
+            }
+         }
+      }
+
+      // Индекс последнего дня окончания среди первых limit, который строго меньше day, или -1.
+      private int lastDayBefore(int day, int limit) {
+         int low = 0;
+         int high = limit - 1;
+         int found = -1;
+         while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (days[middle] < day) {
+               found = middle;
+               low = middle + 1;
+            }
+            else {
+               high = middle - 1;
+            }
+         }
+         return found;
+      }
+   }
+}
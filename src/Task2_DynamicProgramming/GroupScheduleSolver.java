@@ -0,0 +1,285 @@
+package Task2_DynamicProgramming;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Расписание для группы из k путешественников: k непересекающихся цепочек билетов,
+ * каждый билет используется не более одного раза, суммарное количество матчей максимально.
+ * <p>
+ * Задача сводится к потоку минимальной стоимости. Вершины — различные моменты времени (дни начала и
+ * дни "окончание + 1") по возрастанию, как и в основном решении, где билеты упорядочены по дню окончания:
+ * <ul>
+ *    <li>соседние моменты соединены ребром "ждать" пропускной способности k и стоимости 0;</li>
+ *    <li>билет — ребро от своего дня начала к дню после окончания, пропускная способность 1, стоимость -matches.</li>
+ * </ul>
+ * Поток величины k от первого момента к последнему — это k путешественников, а минимальная стоимость —
+ * максимум матчей со знаком минус. Все исходные ребра идут "вперед во времени", поэтому начальные потенциалы
+ * считаются одним проходом по вершинам, а затем выполняется не более k поисков кратчайшего пути (Дейкстра
+ * с потенциалами) — O(k * (n + D) log(n + D)) вместо полного перебора распределений билетов.
+ */
+public class GroupScheduleSolver {
+
+   private static final int NODE_BITS = 22;
+
+   // Остаточная сеть на примитивных массивах: ребро e и обратное к нему e ^ 1.
+   private int[] head;
+   private int[] to;
+   private int[] next;
+   private int[] capacity;
+   private long[] cost;
+   private int edgeCount;
+
+   public static void main(String[] args) {
+      ProblemData data = SumoTournamentSolver.fillSampleData();
+      GroupScheduleSolver solver = new GroupScheduleSolver();
+
+      System.out.println("--- Расписание для группы ---");
+      for (int travelers = 1; travelers <= 3; travelers++) {
+         List<SchedulingResult> schedules = solver.solve(data.tickets(), travelers);
+         int total = schedules.stream().mapToInt(SchedulingResult::maxMatches).sum();
+         System.out.println("Путешественников: " + travelers + ", всего матчей: " + total);
+         for (int i = 0; i < schedules.size(); i++) {
+            String ids = schedules.get(i).chosenTickets().stream().map(t -> "#" + t.id()).reduce((x, y) -> x + ", " + y).orElse("-");
+            System.out.printf("  Путешественник %d: %d матчей, билеты: %s\n", i + 1, schedules.get(i).maxMatches(), ids);
+         }
+      }
+
+      Random rand = new Random(42);
+      List<Ticket> tickets = new ArrayList<>();
+      for (int i = 0; i < 100_000; i++) {
+         int start = rand.nextInt(365) + 1;
+         tickets.add(new Ticket(i, start, start + rand.nextInt(7), rand.nextInt(15) + 1));
+      }
+      long startedAt = System.nanoTime();
+      int total = solver.solve(tickets, 10).stream().mapToInt(SchedulingResult::maxMatches).sum();
+      System.out.printf("\n100000 билетов, 10 путешественников: %d матчей за %d мс\n", total, (System.nanoTime() - startedAt) / 1_000_000);
+   }
+
+   /**
+    * @param tickets   Все доступные билеты (список не изменяется).
+    * @param travelers Количество путешественников k.
+    *
+    * @return Ровно k расписаний (у некоторых путешественников оно может быть пустым).
+    */
+   public List<SchedulingResult> solve(List<Ticket> tickets, int travelers) {
+      if (travelers <= 0) {
+         throw new IllegalArgumentException("Количество путешественников должно быть положительным: " + travelers);
+      }
+      int n = tickets.size();
+
+      // 1. Моменты времени: дни начала и дни после окончания, по возрастанию без повторов.
+      int[] points = new int[2 * n];
+      for (int i = 0; i < n; i++) {
+         points[2 * i] = tickets.get(i).startDay();
+         points[2 * i + 1] = tickets.get(i).endDay() + 1;
+      }
+      points = Arrays.stream(points).sorted().distinct().toArray();
+      int nodes = points.length;
+      if (nodes >= 1 << NODE_BITS) {
+         throw new IllegalArgumentException("Слишком много различных дней: " + nodes);
+      }
+
+      // 2. Сеть: цепочка "ждать" и по ребру на каждый билет.
+      int edges = 2 * (Math.max(nodes - 1, 0) + n);
+      head = new int[nodes];
+      Arrays.fill(head, -1);
+      to = new int[edges];
+      next = new int[edges];
+      capacity = new int[edges];
+      cost = new long[edges];
+      edgeCount = 0;
+      for (int p = 0; p + 1 < nodes; p++) {
+         addEdge(p, p + 1, travelers, 0);
+      }
+      int[] ticketEdge = new int[n];
+      for (int i = 0; i < n; i++) {
+         Ticket ticket = tickets.get(i);
+         ticketEdge[i] = edgeCount;
+         addEdge(Arrays.binarySearch(points, ticket.startDay()), Arrays.binarySearch(points, ticket.endDay() + 1), 1, -ticket.matches());
+      }
+
+      // 3. До k увеличений вдоль кратчайшего пути; путь стоимости 0 уже ничего не добавляет.
+      if (nodes > 0) {
+         long[] potential = initialPotentials(nodes);
+         for (int unit = 0; unit < travelers; unit++) {
+            if (!augment(nodes, potential)) {
+               break;
+            }
+         }
+      }
+
+      return decompose(tickets, travelers, points, ticketEdge);
+   }
+
+   private void addEdge(int from, int target, int edgeCapacity, long edgeCost) {
+      to[edgeCount] = target;
+      capacity[edgeCount] = edgeCapacity;
+      cost[edgeCount] = edgeCost;
+      next[edgeCount] = head[from];
+      head[from] = edgeCount++;
+
+      to[edgeCount] = from;
+      capacity[edgeCount] = 0;
+      cost[edgeCount] = -edgeCost;
+      next[edgeCount] = head[target];
+      head[target] = edgeCount++;
+   }
+
+   /**
+    * Кратчайшие расстояния от первого момента по исходным ребрам: вершины уже упорядочены по времени,
+    * а все ребра ведут вперед, поэтому отрицательные стоимости не мешают.
+    */
+   private long[] initialPotentials(int nodes) {
+      long[] distance = new long[nodes];
+      Arrays.fill(distance, Long.MAX_VALUE);
+      distance[0] = 0;
+      for (int v = 0; v < nodes; v++) {
+         if (distance[v] == Long.MAX_VALUE) {
+            continue;
+         }
+         for (int e = head[v]; e != -1; e = next[e]) {
+            if (capacity[e] > 0 && distance[v] + cost[e] < distance[to[e]]) {
+               distance[to[e]] = distance[v] + cost[e];
+            }
+         }
+      }
+      return distance;
+   }
+
+   /**
+    * Один поиск Дейкстры по приведенным стоимостям и проталкивание единицы потока.
+    *
+    * @return false, если кратчайший путь не улучшает стоимость (больше матчей не набрать).
+    */
+   private boolean augment(int nodes, long[] potential) {
+      long[] distance = new long[nodes];
+      int[] parentEdge = new int[nodes];
+      Arrays.fill(distance, Long.MAX_VALUE);
+      distance[0] = 0;
+      LongHeap heap = new LongHeap(nodes);
+      heap.push(0);
+      while (!heap.isEmpty()) {
+         long entry = heap.pop();
+         int v = (int) (entry & ((1L << NODE_BITS) - 1));
+         if (entry >>> NODE_BITS != distance[v]) {
+            continue;
+         }
+         for (int e = head[v]; e != -1; e = next[e]) {
+            int w = to[e];
+            if (capacity[e] > 0 && potential[w] != Long.MAX_VALUE) {
+               long candidate = distance[v] + cost[e] + potential[v] - potential[w];
+               if (candidate < distance[w]) {
+                  distance[w] = candidate;
+                  parentEdge[w] = e;
+                  heap.push(candidate << NODE_BITS | w);
+               }
+            }
+         }
+      }
+
+      int sink = nodes - 1;
+      if (distance[sink] == Long.MAX_VALUE || distance[sink] + potential[sink] - potential[0] >= 0) {
+         return false;
+      }
+      for (int v = 0; v < nodes; v++) {
+         if (distance[v] != Long.MAX_VALUE) {
+            potential[v] += distance[v];
+         }
+      }
+      for (int v = sink; v != 0; v = to[parentEdge[v] ^ 1]) {
+         capacity[parentEdge[v]]--;
+         capacity[parentEdge[v] ^ 1]++;
+      }
+      return true;
+   }
+
+   /**
+    * Разложение потока на k цепочек: каждая единица потока идет от первого момента к последнему,
+    * пользуясь билетами, по которым прошел поток, и ребрами "ждать" между ними.
+    */
+   private List<SchedulingResult> decompose(List<Ticket> tickets, int travelers, int[] points, int[] ticketEdge) {
+      int nodes = points.length;
+      // usedFrom[момент] — стек билетов с потоком, начинающихся в этот момент (односвязный список).
+      int[] usedFrom = new int[nodes];
+      int[] nextUsed = new int[tickets.size()];
+      Arrays.fill(usedFrom, -1);
+      for (int i = 0; i < tickets.size(); i++) {
+         if (capacity[ticketEdge[i]] == 0) {
+            int from = to[ticketEdge[i] ^ 1];
+            nextUsed[i] = usedFrom[from];
+            usedFrom[from] = i;
+         }
+      }
+
+      List<SchedulingResult> schedules = new ArrayList<>();
+      for (int traveler = 0; traveler < travelers; traveler++) {
+         List<Ticket> chosen = new ArrayList<>();
+         int matches = 0;
+         int v = 0;
+         while (v < nodes - 1) {
+            int i = usedFrom[v];
+            if (i != -1) {
+               usedFrom[v] = nextUsed[i];
+               chosen.add(tickets.get(i));
+               matches += tickets.get(i).matches();
+               v = to[ticketEdge[i]];
+            }
+            else {
+               v++;
+            }
+         }
+         schedules.add(new SchedulingResult(matches, chosen));
+      }
+      return schedules;
+   }
+
+   /**
+    * Двоичная куча примитивных long для очереди Дейкстры (ключ и вершина упакованы в одно число).
+    */
+   private static final class LongHeap {
+      private long[] items;
+      private int size;
+
+      LongHeap(int capacity) {
+         this.items = new long[Math.max(16, capacity)];
+      }
+
+      boolean isEmpty() {
+         return size == 0;
+      }
+
+      void push(long item) {
+         if (size == items.length) {
+            items = Arrays.copyOf(items, size * 2);
+         }
+         int i = size++;
+         while (i > 0 && items[(i - 1) >>> 1] > item) {
+            items[i] = items[(i - 1) >>> 1];
+            i = (i - 1) >>> 1;
+         }
+         items[i] = item;
+      }
+
+      long pop() {
+         long top = items[0];
+         long last = items[--size];
+         int i = 0;
+         while (2 * i + 1 < size) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && items[child + 1] < items[child]) {
+               child++;
+            }
+            if (items[child] >= last) {
+               break;
+            }
+            items[i] = items[child];
+            i = child;
+         }
+         items[i] = last;
+         return top;
+      }
+   }
+}
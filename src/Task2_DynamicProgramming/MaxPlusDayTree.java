@@ -0,0 +1,489 @@
+package Task2_DynamicProgramming;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * Дерево по сжатым дням окончания, которое поддерживает оптимум задачи о билетах при добавлении и удалении билетов.
+ * <p>
+ * Состояние после дня d — окно из K последних значений best: (best[d], best[d - 1], ..., best[d - K + 1]),
+ * где K — наибольшая длина билета в днях. Переход через один день — линейное отображение в (max, +)-алгебре:
+ * best[d] = max(best[d - 1], max по билетам дня d (best[start - 1] + matches)), остальные значения окна сдвигаются.
+ * Пустые дни между днями окончания — тот же сдвиг без билетов. Каждый узел декартова дерева (ключ — день окончания)
+ * хранит матрицу K x K — композицию переходов всех дней своего поддерева вместе с пустыми промежутками.
+ * <ul>
+ *    <li>Добавление и удаление билета пересчитывают матрицы только на пути к корню: O(K^3 log D).</li>
+ *    <li>Оптимум — первая строка корневой матрицы, примененная к нулевому окну; он запоминается после
+ *    каждого изменения, поэтому запрос стоит O(1).</li>
+ *    <li>Память — O(D * K^2) для D различных дней окончания и не зависит от диапазона дней.</li>
+ * </ul>
+ * Оценка полилогарифмическая для билетов ограниченной длины (K — константа, например длина турнира).
+ * Более длинный билет увеличивает K, а с ним время (K^3) и память (K^2 на день), поэтому билеты длиннее
+ * maxTicketDays не принимаются.
+ */
+final class MaxPlusDayTree {
+
+   // Наибольшая длина билета по умолчанию (дней): с запасом больше турнира.
+   static final int DEFAULT_MAX_TICKET_DAYS = 32;
+
+   // "Минус бесконечность" (max, +)-алгебры: сумма с ней тоже дает NEG (см. plus).
+   private static final int NEG = Integer.MIN_VALUE;
+
+   private final int maxTicketDays;
+   // Текущий размер окна K: длина самого длинного добавленного билета.
+   private int window = 1;
+
+   // Узлы декартова дерева на массивах. Освободившиеся узлы связаны через left в список freeNode.
+   private int[] day = new int[16];
+   private int[] left = new int[16];
+   private int[] right = new int[16];
+   private int[] priority = new int[16];
+   private int[] firstDay = new int[16];
+   private int[] lastDay = new int[16];
+   // Билеты дня: ключ (длина, matches) -> количество таких билетов.
+   private final List<TreeMap<Long, Integer>> ticketsOfDay = new ArrayList<>();
+   // ownRow[узел * K + j] — лучший вес билета длины j + 1 этого дня (для j = 0 — не меньше 0: день можно пропустить).
+   private int[] ownRow = new int[16];
+   // matrix[узел * K * K + i * K + j] — композиция переходов поддерева.
+   private int[] matrix = new int[16];
+   private int root = -1;
+   private int usedNodes;
+   private int freeNode = -1;
+
+   private final Random random = new Random(17);
+   private int[] scratch = new int[1];
+   private int[] product = new int[1];
+
+   private int ticketCount;
+   private int maxMatches;
+
+   /**
+    * @param maxTicketDays Наибольшая длина билета в днях, которую примет дерево.
+    */
+   MaxPlusDayTree(int maxTicketDays) {
+      if (maxTicketDays <= 0) {
+         throw new IllegalArgumentException("Длина билета должна быть положительной: " + maxTicketDays);
+      }
+      this.maxTicketDays = maxTicketDays;
+   }
+
+   /**
+    * Добавляет билет.
+    */
+   void add(Ticket ticket) {
+      int length = length(ticket);
+      if (length > window) {
+         resize(length);
+      }
+      root = add(root, ticket.endDay(), key(length, ticket.matches()));
+      ticketCount++;
+      maxMatches = answer();
+   }
+
+   /**
+    * Удаляет ранее добавленный билет.
+    */
+   void remove(Ticket ticket) {
+      root = remove(root, ticket.endDay(), key(length(ticket), ticket.matches()));
+      ticketCount--;
+      maxMatches = answer();
+   }
+
+   /**
+    * @return Максимальное количество матчей, O(1).
+    */
+   int maxMatches() {
+      return maxMatches;
+   }
+
+   int ticketCount() {
+      return ticketCount;
+   }
+
+   /**
+    * Восстанавливает оптимальный набор: значения best по дням окончания считаются одним проходом по дереву,
+    * затем от последнего дня назад выбирается билет, который дает best в этот день. Время O(D * K + n).
+    *
+    * @param tickets Все билеты, добавленные в дерево (из них берутся выбранные).
+    *
+    * @return Максимальное количество матчей и выбранные билеты по возрастанию дня окончания.
+    */
+   SchedulingResult schedule(Iterable<Ticket> tickets) {
+      int dayCount = 0;
+      int[] days = new int[Math.max(1, usedNodes)];
+      int[] best = new int[days.length];
+      int[] nodes = new int[days.length];
+      int[] state = new int[window];
+      // Обход дерева по возрастанию дня без рекурсии.
+      int[] stack = new int[days.length];
+      int depth = 0;
+      int node = root;
+      while (node != -1 || depth > 0) {
+         while (node != -1) {
+            stack[depth++] = node;
+            node = left[node];
+         }
+         node = stack[--depth];
+         if (dayCount > 0) {
+            shiftState(state, day[node] - (long) days[dayCount - 1] - 1);
+         }
+         int value = state[0];
+         for (int j = 0; j < window; j++) {
+            value = Math.max(value, plus(ownRow[node * window + j], state[j]));
+         }
+         System.arraycopy(state, 0, state, 1, window - 1);
+         state[0] = value;
+         days[dayCount] = day[node];
+         best[dayCount] = value;
+         nodes[dayCount++] = node;
+         node = right[node];
+      }
+
+      // День окончания -> (длина, matches) выбранного билета.
+      Map<Integer, Long> picks = new HashMap<>();
+      int i = dayCount - 1;
+      while (i >= 0 && best[i] > 0) {
+         if (i > 0 && best[i - 1] == best[i]) {
+            i--;
+            continue;
+         }
+         int before = -1;
+         for (long key : ticketsOfDay.get(nodes[i]).keySet()) {
+            int length = (int) (key >>> 32);
+            int matches = (int) (key - ((long) length << 32) + Integer.MIN_VALUE);
+            int previous = lastDayAtMost(days, i, days[i] - (long) length);
+            if ((previous == -1 ? 0 : best[previous]) + matches == best[i]) {
+               picks.put(days[i], key);
+               before = previous;
+               break;
+            }
+         }
+         i = before;
+      }
+
+      List<Ticket> chosen = new ArrayList<>();
+      for (Ticket ticket : tickets) {
+         Long key = picks.get(ticket.endDay());
+         if (key != null && key == key(length(ticket), ticket.matches())) {
+            chosen.add(ticket);
+            picks.remove(ticket.endDay());
+         }
+      }
+      chosen.sort((a, b) -> Integer.compare(a.endDay(), b.endDay()));
+      return new SchedulingResult(maxMatches, chosen);
+   }
+
+   private int add(int node, int endDay, long key) {
+      if (node == -1) {
+         node = allocateNode(endDay);
+         ticketsOfDay.get(node).merge(key, 1, Integer::sum);
+         updateOwnRow(node);
+         pull(node);
+         return node;
+      }
+      if (endDay == day[node]) {
+         ticketsOfDay.get(node).merge(key, 1, Integer::sum);
+         updateOwnRow(node);
+      }
+      else if (endDay < day[node]) {
+         // Сначала рекурсия, потом запись: при добавлении узла массивы могут быть перевыделены.
+         int child = add(left[node], endDay, key);
+         left[node] = child;
+         if (priority[child] > priority[node]) {
+            return rotateRight(node);
+         }
+      }
+      else {
+         int child = add(right[node], endDay, key);
+         right[node] = child;
+         if (priority[child] > priority[node]) {
+            return rotateLeft(node);
+         }
+      }
+      pull(node);
+      return node;
+   }
+
+   private int remove(int node, int endDay, long key) {
+      if (node == -1) {
+         throw new IllegalArgumentException("Билета с днем окончания " + endDay + " нет в дереве");
+      }
+      if (endDay == day[node]) {
+         TreeMap<Long, Integer> tickets = ticketsOfDay.get(node);
+         Integer count = tickets.get(key);
+         if (count == null) {
+            throw new IllegalArgumentException("Такого билета нет в дереве: день окончания " + endDay);
+         }
+         if (count == 1) {
+            tickets.remove(key);
+         }
+         else {
+            tickets.put(key, count - 1);
+         }
+         if (tickets.isEmpty()) {
+            // День без билетов удаляется, чтобы память зависела только от текущих билетов.
+            int merged = merge(left[node], right[node]);
+            freeNode(node);
+            return merged;
+         }
+         updateOwnRow(node);
+      }
+      else if (endDay < day[node]) {
+         left[node] = remove(left[node], endDay, key);
+      }
+      else {
+         right[node] = remove(right[node], endDay, key);
+      }
+      pull(node);
+      return node;
+   }
+
+   private int merge(int a, int b) {
+      if (a == -1) {
+         return b;
+      }
+      if (b == -1) {
+         return a;
+      }
+      if (priority[a] > priority[b]) {
+         right[a] = merge(right[a], b);
+         pull(a);
+         return a;
+      }
+      left[b] = merge(a, left[b]);
+      pull(b);
+      return b;
+   }
+
+   private int rotateRight(int node) {
+      int child = left[node];
+      left[node] = right[child];
+      right[child] = node;
+      pull(node);
+      pull(child);
+      return child;
+   }
+
+   private int rotateLeft(int node) {
+      int child = right[node];
+      right[node] = left[child];
+      left[child] = node;
+      pull(node);
+      pull(child);
+      return child;
+   }
+
+   /**
+    * Пересчитывает матрицу узла: сначала левое поддерево, затем пустые дни до дня узла, сам день,
+    * пустые дни до правого поддерева и правое поддерево.
+    */
+   private void pull(int node) {
+      int k = window;
+      int size = k * k;
+      int[] current = scratch;
+      int l = left[node];
+      int r = right[node];
+      int own = node * k;
+      if (l == -1) {
+         // Матрица одного дня: первая строка — лучшие билеты, остальные строки сдвигают окно.
+         Arrays.fill(current, 0, size, NEG);
+         System.arraycopy(ownRow, own, current, 0, k);
+         for (int i = 1; i < k; i++) {
+            current[i * k + i - 1] = 0;
+         }
+         firstDay[node] = day[node];
+      }
+      else {
+         System.arraycopy(matrix, l * size, current, 0, size);
+         shiftRows(current, day[node] - (long) lastDay[l] - 1);
+         // Переход через день узла: новая первая строка — max по билетам, остальные строки сдвигаются вниз.
+         for (int j = 0; j < k; j++) {
+            int value = NEG;
+            for (int m = 0; m < k; m++) {
+               value = Math.max(value, plus(ownRow[own + m], current[m * k + j]));
+            }
+            product[j] = value;
+         }
+         System.arraycopy(current, 0, current, k, size - k);
+         System.arraycopy(product, 0, current, 0, k);
+         firstDay[node] = firstDay[l];
+      }
+
+      int target = node * size;
+      if (r == -1) {
+         System.arraycopy(current, 0, matrix, target, size);
+         lastDay[node] = day[node];
+         return;
+      }
+      shiftRows(current, firstDay[r] - (long) day[node] - 1);
+      // Правое поддерево применяется последним: matrix = matrix(r) x current.
+      int right = r * size;
+      Arrays.fill(matrix, target, target + size, NEG);
+      for (int i = 0; i < k; i++) {
+         int row = target + i * k;
+         for (int m = 0; m < k; m++) {
+            int a = matrix[right + i * k + m];
+            if (a == NEG) {
+               continue;
+            }
+            int from = m * k;
+            for (int j = 0; j < k; j++) {
+               int b = current[from + j];
+               if (b != NEG && a + b > matrix[row + j]) {
+                  matrix[row + j] = a + b;
+               }
+            }
+         }
+      }
+      lastDay[node] = lastDay[r];
+   }
+
+   /**
+    * Слева умножает матрицу на сдвиг окна через gap пустых дней: строка i берется из строки max(0, i - gap).
+    */
+   private void shiftRows(int[] m, long gap) {
+      int k = window;
+      int shift = (int) Math.min(gap, k);
+      if (shift <= 0) {
+         return;
+      }
+      for (int i = k - 1; i > 0; i--) {
+         System.arraycopy(m, Math.max(0, i - shift) * k, m, i * k, k);
+      }
+   }
+
+   private void shiftState(int[] state, long gap) {
+      int shift = (int) Math.min(gap, window);
+      for (int i = window - 1; i > 0 && shift > 0; i--) {
+         state[i] = state[Math.max(0, i - shift)];
+      }
+   }
+
+   private void updateOwnRow(int node) {
+      TreeMap<Long, Integer> tickets = ticketsOfDay.get(node);
+      int k = window;
+      for (int j = 0; j < k; j++) {
+         int length = j + 1;
+         // Наибольший ключ с этой длиной — билет с наибольшим количеством матчей.
+         Long best = tickets.floorKey(((long) length << 32) | 0xFFFFFFFFL);
+         int value = best != null && best >>> 32 == length ? (int) (best - ((long) length << 32) + Integer.MIN_VALUE) : NEG;
+         ownRow[node * k + j] = j == 0 ? Math.max(value, 0) : value;
+      }
+   }
+
+   private int answer() {
+      if (root == -1) {
+         return 0;
+      }
+      int k = window;
+      int result = 0;
+      for (int j = 0; j < k; j++) {
+         result = Math.max(result, matrix[root * k * k + j]);
+      }
+      return result;
+   }
+
+   /**
+    * Увеличивает окно до длины нового самого длинного билета: матрицы всех узлов пересчитываются снизу вверх.
+    * Окно только растет, поэтому перестроений не больше maxTicketDays.
+    */
+   private void resize(int newWindow) {
+      window = newWindow;
+      ownRow = new int[day.length * window];
+      matrix = new int[day.length * window * window];
+      scratch = new int[window * window];
+      product = new int[window];
+      rebuild(root);
+   }
+
+   private void rebuild(int node) {
+      if (node == -1) {
+         return;
+      }
+      rebuild(left[node]);
+      rebuild(right[node]);
+      updateOwnRow(node);
+      pull(node);
+   }
+
+   private int allocateNode(int endDay) {
+      int node;
+      if (freeNode != -1) {
+         node = freeNode;
+         freeNode = left[node];
+      }
+      else {
+         if (usedNodes == day.length) {
+            int capacity = usedNodes * 2;
+            day = Arrays.copyOf(day, capacity);
+            left = Arrays.copyOf(left, capacity);
+            right = Arrays.copyOf(right, capacity);
+            priority = Arrays.copyOf(priority, capacity);
+            firstDay = Arrays.copyOf(firstDay, capacity);
+            lastDay = Arrays.copyOf(lastDay, capacity);
+         }
+         node = usedNodes++;
+         ticketsOfDay.add(null);
+      }
+      if (ownRow.length < day.length * window) {
+         ownRow = Arrays.copyOf(ownRow, day.length * window);
+         matrix = Arrays.copyOf(matrix, day.length * window * window);
+      }
+      if (scratch.length < window * window) {
+         scratch = new int[window * window];
+         product = new int[window];
+      }
+      day[node] = endDay;
+      left[node] = -1;
+      right[node] = -1;
+      priority[node] = random.nextInt();
+      ticketsOfDay.set(node, new TreeMap<>());
+      return node;
+   }
+
+   private void freeNode(int node) {
+      ticketsOfDay.set(node, null);
+      left[node] = freeNode;
+      freeNode = node;
+   }
+
+   private int length(Ticket ticket) {
+      long length = (long) ticket.endDay() - ticket.startDay() + 1;
+      if (length <= 0 || length > maxTicketDays) {
+         throw new IllegalArgumentException("Длина билета должна быть от 1 до " + maxTicketDays + " дней: " + ticket);
+      }
+      return (int) length;
+   }
+
+   // Ключ билета в наборе дня: длина в старших 32 битах, matches со сдвигом на 2^31 — в младших (порядок по matches).
+   private static long key(int length, int matches) {
+      return ((long) length << 32) + ((long) matches - Integer.MIN_VALUE);
+   }
+
+   private static int plus(int a, int b) {
+      return a == NEG || b == NEG ? NEG : a + b;
+   }
+
+   // Индекс последнего дня среди первых limit, который не позже day, или -1.
+   private static int lastDayAtMost(int[] days, int limit, long day) {
+      int low = 0;
+      int high = limit - 1;
+      int found = -1;
+      while (low <= high) {
+         int middle = (low + high) >>> 1;
+         if (days[middle] <= day) {
+            found = middle;
+            low = middle + 1;
+         }
+         else {
+            high = middle - 1;
+         }
+      }
+      return found;
+   }
+}
@@ -0,0 +1,284 @@
+package Task2_DynamicProgramming;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Ленивый перебор расписаний в порядке невозрастания количества матчей: оптимальное, затем следующее по качеству и т.д.
+ * Все выдаваемые наборы билетов различны.
+ * <p>
+ * Таблица ДП берется из {@link ColumnarTicketSolver}: состояние i — первые i билетов в порядке окончания,
+ * f[i] — оптимум для них. В состоянии i два решения: взять i-й билет (переход в состояние его предшественника)
+ * или пропустить (переход в i - 1). Лучшие решения хранятся в BitSet, а "потеря" от другого решения —
+ * loss(i) = f[i] - значение другого варианта. Любое расписание — это путь от n к 0, и его стоимость равна
+ * f[n] минус сумма потерь в состояниях, где выбрано не лучшее решение (отклонениях).
+ * <p>
+ * Следующее лучшее расписание находится по схеме Эппштейна: для каждого состояния строится персистентная
+ * левацкая куча отклонений, возможных на оптимальном пути из него (O(log n) новых узлов на состояние),
+ * а кандидаты перебираются через общую очередь с приоритетом. Каждое следующее расписание стоит
+ * O(log k) операций с очередью плюс размер самого ответа; повторного решения между ними нет.
+ * Узлы куч и кандидаты хранятся в примитивных массивах-аренах.
+ */
+public class ScheduleEnumerator implements Iterator<SchedulingResult> {
+
+   private final List<Ticket> tickets;
+   private final int n;
+   private final int[] sourceIndex;
+   // f[i] — оптимум для первых i билетов; jump[i] — состояние после взятия i-го билета (его предшественник).
+   private final int[] f;
+   private final int[] jump;
+   private final int[] matches;
+   // takeIsBest[i] — лучшее решение в состоянии i: взять билет (иначе пропустить).
+   private final BitSet takeIsBest = new BitSet();
+   // nextTake[i] — первое состояние не выше i на оптимальном пути, где билет берется (0, если таких нет).
+   private final int[] nextTake;
+
+   // Арена узлов персистентных куч: ключ (потеря), состояние отклонения, дети и ранг левацкой кучи.
+   private long[] nodeLoss = new long[16];
+   private int[] nodeState = new int[16];
+   private int[] nodeLeft = new int[16];
+   private int[] nodeRight = new int[16];
+   private int[] nodeRank = new int[16];
+   private int nodeCount;
+   // heapOf[i] — куча отклонений на оптимальном пути из состояния i или -1.
+   private final int[] heapOf;
+
+   // Арена кандидатов: суммарная потеря, узел кучи (последнее отклонение) и кандидат-родитель с предыдущими отклонениями.
+   private long[] candidateLoss = new long[16];
+   private int[] candidateNode = new int[16];
+   private int[] candidateParent = new int[16];
+   private int candidateCount;
+   // Очередь кандидатов: двоичная куча номеров кандидатов по возрастанию потери.
+   private int[] queue = new int[16];
+   private int queueSize;
+
+   private boolean optimumReturned;
+
+   /**
+    * @param tickets Все билеты (список не изменяется).
+    */
+   public ScheduleEnumerator(List<Ticket> tickets) {
+      this.tickets = tickets;
+      ColumnarTicketSolver table = ColumnarTicketSolver.of(tickets);
+      this.n = tickets.size();
+      this.sourceIndex = table.sourceIndices();
+      this.matches = table.sortedMatches();
+      int[] previous = table.previousIndices();
+      int[] prefixOptimum = table.prefixOptimum();
+
+      this.f = new int[n + 1];
+      this.jump = new int[n + 1];
+      this.nextTake = new int[n + 1];
+      this.heapOf = new int[n + 1];
+      heapOf[0] = -1;
+      for (int i = 1; i <= n; i++) {
+         f[i] = prefixOptimum[i - 1];
+         jump[i] = previous[i - 1] + 1;
+         long takeValue = (long) matches[i - 1] + f[jump[i]];
+         long skipValue = f[i - 1];
+         // При равенстве лучшим считается пропуск, как и при восстановлении ответа в ColumnarTicketSolver.
+         boolean take = takeValue > skipValue;
+         takeIsBest.set(i, take);
+         nextTake[i] = take ? i : nextTake[i - 1];
+
+         int deviation = newNode(Math.abs(takeValue - skipValue), i);
+         heapOf[i] = merge(deviation, heapOf[take ? jump[i] : i - 1]);
+      }
+   }
+
+   public static void main(String[] args) {
+      ProblemData data = SumoTournamentSolver.fillSampleData();
+      ScheduleEnumerator schedules = new ScheduleEnumerator(data.tickets());
+
+      System.out.println("--- Лучшие альтернативные расписания ---");
+      for (int rank = 1; rank <= 5 && schedules.hasNext(); rank++) {
+         SchedulingResult result = schedules.next();
+         String ids = result.chosenTickets().stream().map(t -> "#" + t.id()).reduce((x, y) -> x + ", " + y).orElse("-");
+         System.out.printf("%d. Матчей: %d, билеты: %s\n", rank, result.maxMatches(), ids);
+      }
+   }
+
+   @Override
+   public boolean hasNext() {
+      return !optimumReturned || queueSize > 0;
+   }
+
+   @Override
+   public SchedulingResult next() {
+      if (!optimumReturned) {
+         optimumReturned = true;
+         if (heapOf[n] != -1) {
+            push(newCandidate(nodeLoss[heapOf[n]], heapOf[n], -1));
+         }
+         return build(-1);
+      }
+      if (queueSize == 0) {
+         throw new NoSuchElementException();
+      }
+
+      int candidate = pop();
+      long loss = candidateLoss[candidate];
+      int node = candidateNode[candidate];
+      int parent = candidateParent[candidate];
+      // Соседи в куче: то же количество отклонений, но последнее заменено на следующее по величине потери.
+      for (int child : new int[] {nodeLeft[node], nodeRight[node]}) {
+         if (child != -1) {
+            push(newCandidate(loss - nodeLoss[node] + nodeLoss[child], child, parent));
+         }
+      }
+      // Продолжение: еще одно отклонение на оптимальном пути после последнего.
+      int state = nodeState[node];
+      int after = takeIsBest.get(state) ? state - 1 : jump[state];
+      if (heapOf[after] != -1) {
+         push(newCandidate(loss + nodeLoss[heapOf[after]], heapOf[after], candidate));
+      }
+      return build(candidate);
+   }
+
+   /**
+    * Восстанавливает расписание кандидата: идем по оптимальному пути от n к 0 и в состояниях отклонений
+    * выбираем другое решение. Пропуски на оптимальном пути перескакиваются по nextTake.
+    */
+   private SchedulingResult build(int candidate) {
+      int deviationCount = 0;
+      for (int c = candidate; c != -1; c = candidateParent[c]) {
+         deviationCount++;
+      }
+      int[] deviations = new int[deviationCount];
+      for (int c = candidate, k = deviationCount - 1; c != -1; c = candidateParent[c], k--) {
+         deviations[k] = nodeState[candidateNode[c]];
+      }
+
+      List<Ticket> chosen = new ArrayList<>();
+      int state = n;
+      for (int deviation : deviations) {
+         state = followOptimal(state, deviation, chosen);
+         if (takeIsBest.get(deviation)) {
+            state = deviation - 1;
+         }
+         else {
+            chosen.add(tickets.get(sourceIndex[deviation - 1]));
+            state = jump[deviation];
+         }
+      }
+      followOptimal(state, 0, chosen);
+      Collections.reverse(chosen);
+      long loss = candidate == -1 ? 0 : candidateLoss[candidate];
+      return new SchedulingResult((int) (f[n] - loss), chosen);
+   }
+
+   // Проход по оптимальному пути от state до target (target лежит на этом пути).
+   private int followOptimal(int state, int target, List<Ticket> chosen) {
+      while (state > target) {
+         int take = nextTake[state];
+         if (take > target) {
+            chosen.add(tickets.get(sourceIndex[take - 1]));
+            state = jump[take];
+         }
+         else {
+            state = target;
+         }
+      }
+      return state;
+   }
+
+   // --- Персистентная левацкая куча: узлы не изменяются после создания, слияние копирует правый путь ---
+
+   private int newNode(long loss, int state) {
+      if (nodeCount == nodeLoss.length) {
+         int capacity = nodeCount * 2;
+         nodeLoss = Arrays.copyOf(nodeLoss, capacity);
+         nodeState = Arrays.copyOf(nodeState, capacity);
+         nodeLeft = Arrays.copyOf(nodeLeft, capacity);
+         nodeRight = Arrays.copyOf(nodeRight, capacity);
+         nodeRank = Arrays.copyOf(nodeRank, capacity);
+      }
+      nodeLoss[nodeCount] = loss;
+      nodeState[nodeCount] = state;
+      nodeLeft[nodeCount] = -1;
+      nodeRight[nodeCount] = -1;
+      nodeRank[nodeCount] = 1;
+      return nodeCount++;
+   }
+
+   private int merge(int a, int b) {
+      if (a == -1) {
+         return b;
+      }
+      if (b == -1) {
+         return a;
+      }
+      if (nodeLoss[b] < nodeLoss[a]) {
+         int swap = a;
+         a = b;
+         b = swap;
+      }
+      int copy = newNode(nodeLoss[a], nodeState[a]);
+      int left = nodeLeft[a];
+      int right = merge(nodeRight[a], b);
+      if (rank(left) < rank(right)) {
+         int swap = left;
+         left = right;
+         right = swap;
+      }
+      nodeLeft[copy] = left;
+      nodeRight[copy] = right;
+      nodeRank[copy] = rank(right) + 1;
+      return copy;
+   }
+
+   private int rank(int node) {
+      return node == -1 ? 0 : nodeRank[node];
+   }
+
+   // --- Очередь кандидатов ---
+
+   private int newCandidate(long loss, int node, int parent) {
+      if (candidateCount == candidateLoss.length) {
+         int capacity = candidateCount * 2;
+         candidateLoss = Arrays.copyOf(candidateLoss, capacity);
+         candidateNode = Arrays.copyOf(candidateNode, capacity);
+         candidateParent = Arrays.copyOf(candidateParent, capacity);
+      }
+      candidateLoss[candidateCount] = loss;
+      candidateNode[candidateCount] = node;
+      candidateParent[candidateCount] = parent;
+      return candidateCount++;
+   }
+
+   private void push(int candidate) {
+      if (queueSize == queue.length) {
+         queue = Arrays.copyOf(queue, queueSize * 2);
+      }
+      int i = queueSize++;
+      while (i > 0 && candidateLoss[queue[(i - 1) >>> 1]] > candidateLoss[candidate]) {
+         queue[i] = queue[(i - 1) >>> 1];
+         i = (i - 1) >>> 1;
+      }
+      queue[i] = candidate;
+   }
+
+   private int pop() {
+      int top = queue[0];
+      int last = queue[--queueSize];
+      int i = 0;
+      while (2 * i + 1 < queueSize) {
+         int child = 2 * i + 1;
+         if (child + 1 < queueSize && candidateLoss[queue[child + 1]] < candidateLoss[queue[child]]) {
+            child++;
+         }
+         if (candidateLoss[queue[child]] >= candidateLoss[last]) {
+            break;
+         }
+         queue[i] = queue[child];
+         i = child;
+      }
+      queue[i] = last;
+      return top;
+   }
+}
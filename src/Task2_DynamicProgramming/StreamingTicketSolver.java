@@ -0,0 +1,77 @@
+package Task2_DynamicProgramming;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Потоковый (онлайн) режим: билеты поступают по одному в любом порядке дней, а оптимум поддерживается
+ * после каждой продажи без повторного решения всей задачи.
+ * <p>
+ * Оптимум хранится в {@link MaxPlusDayTree} — дереве по сжатым дням окончания, узлы которого хранят композицию
+ * переходов ДП своих дней. Билет "из прошлого" меняет матрицы только на пути к корню, поэтому каждая продажа
+ * стоит O(K^3 log D), где K — длина самого длинного билета в днях, а D — количество различных дней окончания;
+ * {@link #currentMaxMatches()} работает за O(1). Память зависит от количества дней окончания, а не от диапазона дней.
+ * Выбранные билеты восстанавливаются по запросу.
+ */
+public class StreamingTicketSolver {
+
+   private final MaxPlusDayTree tree;
+   private final List<Ticket> tickets = new ArrayList<>();
+
+   public StreamingTicketSolver() {
+      this(MaxPlusDayTree.DEFAULT_MAX_TICKET_DAYS);
+   }
+
+   /**
+    * @param maxTicketDays Наибольшая длина билета в днях.
+    */
+   public StreamingTicketSolver(int maxTicketDays) {
+      this.tree = new MaxPlusDayTree(maxTicketDays);
+   }
+
+   public static void main(String[] args) {
+      List<Ticket> sales = new ArrayList<>(SumoTournamentSolver.fillSampleData().tickets());
+      // Продажи приходят в произвольном порядке.
+      Collections.shuffle(sales, new Random(7));
+
+      StreamingTicketSolver solver = new StreamingTicketSolver();
+      System.out.println("--- Потоковый режим ---");
+      for (Ticket ticket : sales) {
+         solver.add(ticket);
+         System.out.printf("Продан билет #%d (Дни: %d-%d, Матчей: %d) -> максимум матчей: %d\n", ticket.id(), ticket.startDay(), ticket.endDay(), ticket.matches(), solver.currentMaxMatches());
+      }
+
+      System.out.println("\nВыбранные билеты:");
+      for (Ticket ticket : solver.currentSchedule().chosenTickets()) {
+         System.out.printf("  -> Билет #%d (Дни: %d-%d, Матчей: %d)\n", ticket.id(), ticket.startDay(), ticket.endDay(), ticket.matches());
+      }
+   }
+
+   /**
+    * Добавляет проданный билет.
+    *
+    * @param ticket Билет не длиннее maxTicketDays дней.
+    */
+   public void add(Ticket ticket) {
+      tree.add(ticket);
+      tickets.add(ticket);
+   }
+
+   /**
+    * @return Максимальное количество матчей по всем проданным билетам.
+    */
+   public int currentMaxMatches() {
+      return tree.maxMatches();
+   }
+
+   /**
+    * Восстанавливает оптимальный набор билетов за O(D * K + n).
+    *
+    * @return Максимальное количество матчей и выбранные билеты по возрастанию дня окончания.
+    */
+   public SchedulingResult currentSchedule() {
+      return tree.schedule(tickets);
+   }
+}
@@ -1,5 +1,7 @@
 package Task2_DynamicProgramming;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
 
 
@@ -56,6 +58,12 @@ public class SumoTournamentSolver {
 
    /**
     * Основной метод для решения задачи.
+    * <p>
+    * Билеты упорядочиваются по времени ОКОНЧАНИЯ, и для каждого i-го билета оптимум равен максимуму из двух вариантов:
+    * взять билет (его матчи плюс оптимум для билетов, закончившихся до его начала) или не брать (оптимум для i-1 билетов).
+    * Вычисления выполняет {@link ColumnarTicketSolver}: примитивная сортировка, бинарный поиск
+    * предшественников и восстановление ответа по ним же — O(n log n) вместо O(n²).
+    * Входной список не изменяется.
     *
     * @param tickets Список всех доступных билетов.
     *
@@ -65,115 +73,30 @@ public class SumoTournamentSolver {
       if (tickets == null || tickets.isEmpty()) {
          return new SchedulingResult(0, new ArrayList<>());
       }
+      return ColumnarTicketSolver.of(tickets).toResult(tickets);
+   }
 
-      // 1. Сортировка: ключевой шаг. Сортируем билеты по времени их ОКОНЧАНИЯ.
-      // Это позволяет нам при рассмотрении i-го билета принимать решение,
-      // зная, что все предыдущие билеты (j < i) заканчиваются не позже, чем i-й.
-      tickets.sort(Comparator.comparingInt(Ticket::endDay));
-
-      int n = tickets.size();
-
-      // 2. Массив maxMatchesUpTo[i] ("таблица памяти") будет хранить максимальное количество матчей,
-      // которое можно посмотреть, используя подмножество из первых i+1 билетов (от 0 до i)
-      // из отсортированного списка. 9.	Зная это, мы понимаем, что итоговый ответ на всю задачу
-      // будет храниться в последней ячейке — maxMatchesUpTo[n-1]
-      int[] maxMatchesUpTo = new int[n];
-
-      // Базовый случай: для первого билета (индекс 0) максимальное количество матчей - это его собственное.
-      maxMatchesUpTo[0] = tickets.get(0).matches();
-
-      // 3. Заполнение DP-массива (основной цикл)
-      // Итерируемся по отсортированным билетам и для каждого i-го билета заполняем ячейку maxMatchesUpTo[i].
-      for (int i = 1; i < n; i++) {
-         Ticket currentTicket = tickets.get(i);
-         int matchesIfWeTakeCurrent = currentTicket.matches();
-
-         // Находим индекс последнего билета, который НЕ ПЕРЕСЕКАЕТСЯ с текущим.
-         // Непересекающийся билет - тот, который заканчивается до начала текущего.
-         int prevNonOverlappingIndex = findPreviousNonOverlapping(tickets, i);
-
-         // Если такой билет найден, то к матчам текущего билета можно добавить
-         // оптимальное решение, найденное для всех билетов до непересекающегося.
-         if (prevNonOverlappingIndex != -1) {
-            matchesIfWeTakeCurrent += maxMatchesUpTo[prevNonOverlappingIndex];
-         }
-
-         // Основная формула для динамического программирования - оптимальное решение для i билетов
-         // - это максимум из двух вариантов:
-
-         // 1. Взять текущий билет (matchesIfWeTakeCurrent).
-         // Если мы берём i-й билет, мы получаем tickets.get(i).matches() матчей.
-         // Но поскольку мы не можем быть в двух местах одновременно, мы можем добавить
-         // к этому результату только матчи с тех билетов, которые не пересекаются с i-м.
-         // Благодаря сортировке, нужно лишь найти оптимальное решение для всех билетов,
-         // которые заканчиваются до начала i-го билета.
-
-         // 2. НЕ брать текущий билет (в этом случае результат равен maxMatchesUpTo[i-1]).
-         // Если мы решаем проигнорировать i-й билет, то максимальное количество матчей,
-         // которое мы можем посмотреть, очевидно, не меняется по сравнению с предыдущим шагом.
-         // Оно равно оптимальному решению для первых i-1 билетов.
-         maxMatchesUpTo[i] = Math.max(matchesIfWeTakeCurrent, maxMatchesUpTo[i - 1]);
-      }
-
-      // 4. Восстановление пути (какие билеты были выбраны для достижения оптимума)
-      // После заполнения массива maxMatchesUpTo мы знаем ответ (maxMatchesUpTo[n-1]),
-      // но не знаем, какие именно билеты его сформировали.
-      // Для этого мы "идём по своим следам" в обратном порядке, с конца массива maxMatchesUpTo.
-      List<Ticket> chosenTickets = new ArrayList<>();
-      int i = n - 1;
-      while (i >= 0) {
-         // Если мы на первом билете, и его стоит взять (т.е. он вносит вклад в результат)
-         if (i == 0 && maxMatchesUpTo[i] > 0) {
-            chosenTickets.add(tickets.get(i));
-            break;
-         }
-
-         // Если maxMatchesUpTo[i] > maxMatchesUpTo[i-1], это означает, что i-й билет ТОЧНО был выбран,
-         // так как он улучшил результат по сравнению с предыдущим шагом. Без него оптимум не достигался.
-         // Т.е. i-й билет был абсолютно необходим для достижения этого оптимума.
-         // Мы добавляем i-й билет в наш итоговый список. После этого мы должны найти остальные билеты,
-         // которые были выбраны вместе с ним. Мы знаем, что они не должны с ним пересекаться,
-         // поэтому мы "перепрыгиваем" наш указатель i на prevIndex — последнего непересекающегося билета
-         // и продолжаем анализ оттуда.
-         if (maxMatchesUpTo[i] > maxMatchesUpTo[i - 1]) {
-            chosenTickets.add(tickets.get(i));
-
-            // Теперь нам нужно найти остальные билеты, которые привели к этому решению.
-            // Мы "перескакиваем" на последний непересекающийся с ним билет, чтобы продолжить поиск оттуда.
-            int prevIndex = findPreviousNonOverlapping(tickets, i);
-            i = prevIndex;
-         }
-         else {
-            // Если maxMatchesUpTo[i] == maxMatchesUpTo[i-1], значит, i-й билет не был выбран
-            // (т.е. он не улучшил результат), поэтому оптимальное решение для i-го шага
-            // было просто унаследовано от (i-1)-го.
-            // Просто переходим к предыдущему билету.
-            i--;
-         }
-      }
-
-      // Так как мы добавляли билеты с конца (от последнего к первому), развернем список для правильного порядка.
-      java.util.Collections.reverse(chosenTickets);
-
-      return new SchedulingResult(maxMatchesUpTo[n - 1], chosenTickets);
+   /**
+    * Решение для файла билетов, который не помещается в память (внешняя сортировка и ДП по дням).
+    *
+    * @param ticketFile    Файл строк фиксированной ширины (id, startDay, endDay, matches), int big-endian.
+    * @param chosenIdsFile Файл для id выбранных билетов.
+    *
+    * @return Максимальное количество матчей.
+    */
+   public long findMaxMatches(Path ticketFile, Path chosenIdsFile) throws IOException {
+      return new ExternalTicketSolver().solve(ticketFile, chosenIdsFile);
    }
 
    /**
-    * Вспомогательный метод для поиска последнего билета, который не пересекается с билетом `i`.
+    * Альтернативные расписания на случай, если билеты оптимального набора закончились.
     *
-    * @param tickets Отсортированный список билетов.
-    * @param i       Индекс текущего билета.
+    * @param tickets Список всех доступных билетов (не изменяется).
     *
-    * @return Индекс непересекающегося билета или -1, если такого нет.
+    * @return Ленивый итератор различных наборов билетов в порядке невозрастания количества матчей;
+    *         первым идет оптимальный набор.
     */
-   private int findPreviousNonOverlapping(List<Ticket> tickets, int i) {
-      // Простой линейный поиск в обратном порядке. Для небольшого N он достаточно эффективен.
-      // Для очень больших N здесь можно было бы использовать бинарный поиск для ускорения.
-      for (int j = i - 1; j >= 0; j--) {
-         if (tickets.get(j).endDay() < tickets.get(i).startDay()) {
-            return j;
-         }
-      }
-      return -1;
+   public Iterator<SchedulingResult> alternativeSchedules(List<Ticket> tickets) {
+      return new ScheduleEnumerator(tickets);
    }
 }
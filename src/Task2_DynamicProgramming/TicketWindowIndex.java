@@ -0,0 +1,421 @@
+package Task2_DynamicProgramming;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Предрасчитанный индекс для запросов "максимум матчей в окне дней [a, b]".
+ * <p>
+ * Дни начала и окончания билетов сжимаются в P точек. Окно [a, b] превращается в отрезок точек [lo, hi]:
+ * подходят билеты, начинающиеся не раньше точки lo и заканчивающиеся не позже точки hi.
+ * Поверх точек строится разреженная таблица непересекающихся блоков: на уровне h точки разбиты на блоки
+ * длины 2^(h + 1) с серединой m, и для отрезка [lo, hi] нужен ровно один уровень — старший различающийся бит lo и hi.
+ * Любой допустимый набор билетов либо не пересекает границу m / m + 1, либо пересекает ее ровно одним билетом,
+ * а этот билет короче K дней (K — длина самого длинного билета). Поэтому для каждой точки уровня хранятся:
+ * <ul>
+ *    <li>слева от середины — оптимум до дня m и лучшие продолжения через пересекающий билет для каждого
+ *    из K - 1 возможных дней его окончания;</li>
+ *    <li>справа — оптимумы, начинающиеся с каждого из K первых дней после середины;</li>
+ *    <li>и первый (последний) билет каждого оптимума — по этим ссылкам набор восстанавливается прыжками
+ *    от билета к следующему, без прохода по дням окна.</li>
+ * </ul>
+ * Построение — O((n + P) * K * log P), память — O(P * K * log P), запрос значения — два бинарных поиска и O(K),
+ * восстановление — еще O(количество выбранных билетов).
+ * Оценка зависит от K, поэтому билеты длиннее maxTicketDays не принимаются.
+ * Индекс неизменяем после построения, поэтому его можно без синхронизации использовать из разных потоков.
+ */
+public class TicketWindowIndex {
+
+   private static final int NEG = Integer.MIN_VALUE;
+
+   private final Ticket[] tickets;
+   // Различные дни начала и окончания по возрастанию.
+   private final int[] points;
+   // Номера точек дня начала и дня окончания каждого билета.
+   private final int[] startPoint;
+   private final int[] endPoint;
+   // Размер окна K: длина самого длинного билета в днях.
+   private final int window;
+
+   // Окно из одной точки: лучший однодневный билет этого дня (или -1).
+   private final int[] oneDayTicket;
+
+   // values[h][точка * K + d]: слева от середины d = 0 — оптимум до дня m, d > 0 — лучший набор, последний билет
+   // которого пересекает середину и заканчивается в день m + d (NEG, если такого нет); справа — оптимум
+   // для билетов, начинающихся не раньше дня m + 1 + d.
+   private final int[][] values;
+   // choices[h][точка * 2K + ...]: слева d < K — первый билет оптимума до дня m - d, K + d — пересекающий билет
+   // для values[.. d]; справа d < K — последний билет оптимума, начинающегося не раньше дня m + 1 + d.
+   private final int[][] choices;
+
+   /**
+    * @param tickets Все билеты (список не изменяется), не длиннее {@link MaxPlusDayTree#DEFAULT_MAX_TICKET_DAYS} дней.
+    */
+   public TicketWindowIndex(List<Ticket> tickets) {
+      this(tickets, MaxPlusDayTree.DEFAULT_MAX_TICKET_DAYS);
+   }
+
+   /**
+    * @param tickets       Все билеты (список не изменяется).
+    * @param maxTicketDays Наибольшая длина билета в днях.
+    *
+    * @throws IllegalArgumentException если есть билет длиннее maxTicketDays дней или с концом раньше начала.
+    */
+   public TicketWindowIndex(List<Ticket> tickets, int maxTicketDays) {
+      this.tickets = tickets.toArray(new Ticket[0]);
+      int n = this.tickets.length;
+      int longest = 1;
+      for (Ticket ticket : this.tickets) {
+         long length = (long) ticket.endDay() - ticket.startDay() + 1;
+         if (length <= 0 || length > maxTicketDays) {
+            throw new IllegalArgumentException("Длина билета должна быть от 1 до " + maxTicketDays + " дней: " + ticket);
+         }
+         longest = Math.max(longest, (int) length);
+      }
+      this.window = longest;
+      int[] days = new int[2 * n];
+      for (int t = 0; t < n; t++) {
+         days[2 * t] = this.tickets[t].startDay();
+         days[2 * t + 1] = this.tickets[t].endDay();
+      }
+      this.points = Arrays.stream(days).sorted().distinct().toArray();
+      this.startPoint = new int[n];
+      this.endPoint = new int[n];
+      for (int t = 0; t < n; t++) {
+         startPoint[t] = Arrays.binarySearch(points, this.tickets[t].startDay());
+         endPoint[t] = Arrays.binarySearch(points, this.tickets[t].endDay());
+      }
+      int p = points.length;
+      int[] byStart = groupBy(startPoint, p);
+      int[] byEnd = groupBy(endPoint, p);
+
+      this.oneDayTicket = new int[p];
+      Arrays.fill(oneDayTicket, -1);
+      for (int t = 0; t < n; t++) {
+         int point = startPoint[t];
+         if (point == endPoint[t] && (oneDayTicket[point] == -1 || this.tickets[t].matches() > this.tickets[oneDayTicket[point]].matches())) {
+            oneDayTicket[point] = t;
+         }
+      }
+
+      int levels = p <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(p - 1);
+      this.values = new int[levels][];
+      this.choices = new int[levels][];
+      // Полные таблицы оптимумов половин нужны только при построении уровня.
+      int[] half = new int[p * window];
+      int[] crossing = new int[window * window];
+      int[] crossingTicket = new int[window * window];
+      for (int h = 0; h < levels; h++) {
+         values[h] = new int[p * window];
+         choices[h] = new int[p * 2 * window];
+         for (int blockStart = 0; blockStart < p; blockStart += 2 << h) {
+            int middle = blockStart + (1 << h) - 1;
+            if (middle >= p - 1) {
+               break;
+            }
+            buildLeft(h, blockStart, middle, byStart, half, crossing, crossingTicket);
+            buildRight(h, middle, Math.min(p - 1, blockStart + (2 << h) - 1), byEnd, half);
+         }
+      }
+   }
+
+   public static void main(String[] args) {
+      ProblemData data = SumoTournamentSolver.fillSampleData();
+      TicketWindowIndex index = new TicketWindowIndex(data.tickets());
+
+      System.out.println("--- Запросы по окнам дней ---");
+      int[][] windows = {{1, 9}, {1, 5}, {2, 7}, {4, 9}, {6, 9}};
+      for (int[] window : windows) {
+         SchedulingResult result = index.schedule(window[0], window[1]);
+         String ids = result.chosenTickets().stream().map(t -> "#" + t.id()).reduce((x, y) -> x + ", " + y).orElse("-");
+         System.out.printf("Дни %d-%d: максимум матчей %d, билеты: %s\n", window[0], window[1], result.maxMatches(), ids);
+      }
+
+      Random rand = new Random(42);
+      List<Ticket> tickets = new ArrayList<>();
+      for (int i = 0; i < 100_000; i++) {
+         int start = rand.nextInt(365) + 1;
+         tickets.add(new Ticket(i, start, start + rand.nextInt(7), rand.nextInt(15) + 1));
+      }
+      long startedAt = System.nanoTime();
+      TicketWindowIndex large = new TicketWindowIndex(tickets);
+      long builtAt = System.nanoTime();
+      long checksum = 0;
+      for (int q = 0; q < 1_000_000; q++) {
+         int a = rand.nextInt(372) + 1;
+         checksum += large.maxMatches(a, a + rand.nextInt(372 - a + 1));
+      }
+      long answeredAt = System.nanoTime();
+      System.out.printf("\n100000 билетов: индекс построен за %d мс, 1000000 запросов за %d мс (контрольная сумма %d)\n", (builtAt - startedAt) / 1_000_000, (answeredAt - builtAt) / 1_000_000, checksum);
+
+      // Билеты, разбросанные по многолетнему архиву: различных дней почти вдвое больше, чем билетов.
+      tickets.clear();
+      int archiveDays = 10_000_000;
+      for (int i = 0; i < 50_000; i++) {
+         int start = rand.nextInt(archiveDays) + 1;
+         tickets.add(new Ticket(i, start, start + rand.nextInt(7), rand.nextInt(15) + 1));
+      }
+      startedAt = System.nanoTime();
+      TicketWindowIndex archive = new TicketWindowIndex(tickets);
+      builtAt = System.nanoTime();
+      checksum = 0;
+      for (int q = 0; q < 1_000_000; q++) {
+         int a = rand.nextInt(archiveDays) + 1;
+         checksum += archive.maxMatches(a, a + rand.nextInt(archiveDays - a + 1));
+      }
+      answeredAt = System.nanoTime();
+      // Восстановление стоит O(размер ответа), а в длинных окнах выбираются тысячи билетов.
+      int chosen = 0;
+      for (int q = 0; q < 1_000; q++) {
+         int a = rand.nextInt(archiveDays) + 1;
+         chosen += archive.schedule(a, a + rand.nextInt(archiveDays - a + 1)).chosenTickets().size();
+      }
+      long scheduledAt = System.nanoTime();
+      System.out.printf("50000 билетов на %d днях (%d точек): индекс построен за %d мс, 1000000 запросов за %d мс (контрольная сумма %d), 1000 восстановлений (%d билетов) за %d мс\n",
+              archiveDays, archive.points.length, (builtAt - startedAt) / 1_000_000, (answeredAt - builtAt) / 1_000_000, checksum, chosen, (scheduledAt - answeredAt) / 1_000_000);
+   }
+
+   /**
+    * @param firstDay Первый день окна (билеты должны начинаться не раньше).
+    * @param lastDay  Последний день окна (билеты должны закончиться не позже).
+    *
+    * @return Максимальное количество матчей по билетам, целиком лежащим в окне.
+    */
+   public int maxMatches(int firstDay, int lastDay) {
+      int lo = lowerBound(points, firstDay);
+      int hi = upperBound(points, lastDay) - 1;
+      if (lo > hi) {
+         return 0;
+      }
+      if (lo == hi) {
+         return oneDayTicket[lo] == -1 ? 0 : tickets[oneDayTicket[lo]].matches();
+      }
+      int h = 31 - Integer.numberOfLeadingZeros(lo ^ hi);
+      return Math.max(values[h][lo * window] + values[h][hi * window], bestCrossing(h, lo, hi));
+   }
+
+   /**
+    * @param firstDay Первый день окна.
+    * @param lastDay  Последний день окна.
+    *
+    * @return Максимальное количество матчей в окне и выбранные билеты по возрастанию дня окончания.
+    */
+   public SchedulingResult schedule(int firstDay, int lastDay) {
+      int lo = lowerBound(points, firstDay);
+      int hi = upperBound(points, lastDay) - 1;
+      List<Ticket> chosen = new ArrayList<>();
+      if (lo > hi) {
+         return new SchedulingResult(0, chosen);
+      }
+      if (lo == hi) {
+         if (oneDayTicket[lo] != -1) {
+            chosen.add(tickets[oneDayTicket[lo]]);
+         }
+         return new SchedulingResult(chosen.isEmpty() ? 0 : chosen.get(0).matches(), chosen);
+      }
+      int h = 31 - Integer.numberOfLeadingZeros(lo ^ hi);
+      int middle = lo | ((1 << h) - 1);
+      int best = values[h][lo * window] + values[h][hi * window];
+      int crossing = bestCrossing(h, lo, hi);
+      if (crossing > best) {
+         int d = crossingEnd(h, lo, hi, crossing);
+         int t = choices[h][lo * 2 * window + window + d];
+         collectLeft(h, lo, middle, points[middle] - tickets[t].startDay() + 1, chosen);
+         chosen.add(tickets[t]);
+         collectRight(h, hi, middle, d, chosen);
+         return new SchedulingResult(crossing, chosen);
+      }
+      collectLeft(h, lo, middle, 0, chosen);
+      collectRight(h, hi, middle, 0, chosen);
+      return new SchedulingResult(best, chosen);
+   }
+
+   /**
+    * Левая половина блока: точки от middle вниз. Для дня X_j = points[middle] - j считается оптимум по билетам,
+    * начинающимся не раньше точки i и заканчивающимся не позже X_j; затем — лучшие наборы с одним билетом,
+    * пересекающим середину.
+    */
+   private void buildLeft(int h, int blockStart, int middle, int[] byStart, int[] half, int[] crossing, int[] crossingTicket) {
+      int k = window;
+      int[] value = values[h];
+      int[] choice = choices[h];
+      int middleDay = points[middle];
+      Arrays.fill(crossing, NEG);
+      // Пары (dl, dr) пересекающих билетов, уже встреченных при движении влево.
+      int[] pairs = new int[k * k];
+      int pairCount = 0;
+      for (int i = middle; i >= blockStart; i--) {
+         int row = i * k;
+         int choiceRow = i * 2 * k;
+         for (int j = 0; j < k; j++) {
+            half[row + j] = i < middle ? half[row + k + j] : 0;
+            choice[choiceRow + j] = i < middle ? choice[choiceRow + 2 * k + j] : -1;
+         }
+         for (int s = byStart[i]; s < byStart[i + 1]; s++) {
+            int t = byStart[points.length + 1 + s];
+            int endDay = tickets[t].endDay();
+            int matches = tickets[t].matches();
+            if (endDay > middleDay) {
+               int cell = (middleDay - tickets[t].startDay() + 1) * k + (endDay - middleDay);
+               if (crossing[cell] == NEG) {
+                  pairs[pairCount++] = cell;
+               }
+               if (matches > crossing[cell]) {
+                  crossing[cell] = matches;
+                  crossingTicket[cell] = t;
+               }
+               continue;
+            }
+            int after = endPoint[t] + 1;
+            for (int j = 0; j < k && endDay <= middleDay - j; j++) {
+               int candidate = matches + (after <= middle ? half[after * k + j] : 0);
+               if (candidate > half[row + j]) {
+                  half[row + j] = candidate;
+                  choice[choiceRow + j] = t;
+               }
+            }
+         }
+         value[row] = half[row];
+         for (int d = 1; d < k; d++) {
+            value[row + d] = NEG;
+            choice[choiceRow + k + d] = -1;
+         }
+         for (int q = 0; q < pairCount; q++) {
+            int cell = pairs[q];
+            int d = cell % k;
+            int candidate = half[row + cell / k] + crossing[cell];
+            if (candidate > value[row + d]) {
+               value[row + d] = candidate;
+               choice[choiceRow + k + d] = crossingTicket[cell];
+            }
+         }
+      }
+   }
+
+   /**
+    * Правая половина блока: точки от middle + 1 вверх. Для дня Y_d = points[middle] + 1 + d считается оптимум
+    * по билетам, начинающимся не раньше Y_d и заканчивающимся не позже точки i.
+    */
+   private void buildRight(int h, int middle, int blockEnd, int[] byEnd, int[] half) {
+      int k = window;
+      int[] value = values[h];
+      int[] choice = choices[h];
+      int firstDay = points[middle] + 1;
+      for (int i = middle + 1; i <= blockEnd; i++) {
+         int row = i * k;
+         int choiceRow = i * 2 * k;
+         for (int d = 0; d < k; d++) {
+            half[row + d] = i > middle + 1 ? half[row - k + d] : 0;
+            choice[choiceRow + d] = i > middle + 1 ? choice[choiceRow - 2 * k + d] : -1;
+         }
+         for (int s = byEnd[i]; s < byEnd[i + 1]; s++) {
+            int t = byEnd[points.length + 1 + s];
+            int startDay = tickets[t].startDay();
+            int before = startPoint[t] - 1;
+            for (int d = 0; d < k && startDay >= firstDay + d; d++) {
+               int candidate = tickets[t].matches() + (before > middle ? half[before * k + d] : 0);
+               if (candidate > half[row + d]) {
+                  half[row + d] = candidate;
+                  choice[choiceRow + d] = t;
+               }
+            }
+         }
+         System.arraycopy(half, row, value, row, k);
+      }
+   }
+
+   // Лучший набор с билетом, пересекающим середину и заканчивающимся не позже точки hi; NEG, если такого нет.
+   private int bestCrossing(int h, int lo, int hi) {
+      int[] value = values[h];
+      int middleDay = points[lo | ((1 << h) - 1)];
+      int result = NEG;
+      for (int d = 1; d < window && middleDay + d <= points[hi]; d++) {
+         int left = value[lo * window + d];
+         if (left != NEG) {
+            result = Math.max(result, left + value[hi * window + d]);
+         }
+      }
+      return result;
+   }
+
+   private int crossingEnd(int h, int lo, int hi, int crossing) {
+      int[] value = values[h];
+      int d = 1;
+      while (value[lo * window + d] == NEG || value[lo * window + d] + value[hi * window + d] != crossing) {
+         d++;
+      }
+      return d;
+   }
+
+   // Билеты оптимума левой половины до дня points[middle] - j: от первого билета прыжками к следующему.
+   private void collectLeft(int h, int lo, int middle, int j, List<Ticket> chosen) {
+      int i = lo;
+      while (i <= middle) {
+         int t = choices[h][i * 2 * window + j];
+         if (t == -1) {
+            return;
+         }
+         chosen.add(tickets[t]);
+         i = endPoint[t] + 1;
+      }
+   }
+
+   // Билеты оптимума правой половины, начинающегося не раньше дня points[middle] + 1 + d: от последнего билета назад.
+   private void collectRight(int h, int hi, int middle, int d, List<Ticket> chosen) {
+      int from = chosen.size();
+      int i = hi;
+      while (i > middle) {
+         int t = choices[h][i * 2 * window + d];
+         if (t == -1) {
+            break;
+         }
+         chosen.add(tickets[t]);
+         i = startPoint[t] - 1;
+      }
+      Collections.reverse(chosen.subList(from, chosen.size()));
+   }
+
+   /**
+    * Сортировка подсчетом номеров билетов по точке: первые points + 1 элементов — начала групп,
+    * за ними — номера билетов группа за группой.
+    */
+   private static int[] groupBy(int[] pointOf, int pointCount) {
+      int n = pointOf.length;
+      int[] grouped = new int[pointCount + 1 + n];
+      for (int t = 0; t < n; t++) {
+         grouped[pointOf[t] + 1]++;
+      }
+      for (int i = 1; i <= pointCount; i++) {
+         grouped[i] += grouped[i - 1];
+      }
+      int[] fill = Arrays.copyOf(grouped, pointCount);
+      for (int t = 0; t < n; t++) {
+         grouped[pointCount + 1 + fill[pointOf[t]]++] = t;
+      }
+      return grouped;
+   }
+
+   // Количество элементов, строго меньших value.
+   private static int lowerBound(int[] sorted, int value) {
+      int low = 0;
+      int high = sorted.length;
+      while (low < high) {
+         int middle = (low + high) >>> 1;
+         if (sorted[middle] < value) {
+            low = middle + 1;
+         }
+         else {
+            high = middle;
+         }
+      }
+      return low;
+   }
+
+   // Количество элементов, не больших value.
+   private static int upperBound(int[] sorted, int value) {
+      return value == Integer.MAX_VALUE ? sorted.length : lowerBound(sorted, value + 1);
+   }
+}
@@ -0,0 +1,116 @@
+package Task3_Graphs;
+
+import java.util.Arrays;
+
+/**
+ * Профиль прибытия для одного стартового города: достижимые города, упорядоченные по времени
+ * (в одну сторону — по времени "туда", для поездки туда и обратно — по суммарному времени),
+ * и префиксный максимум расстояния по этому порядку.
+ * <p>
+ * Самый дальний город для любого бюджета T — это префиксный максимум на последней позиции со временем не больше T,
+ * то есть один бинарный поиск вместо нового запуска Дейкстры.
+ * <p>
+ * Профиль строится по поиску с бюджетом coverage и дает точные ответы для всех T &lt;= coverage:
+ * при таком T ни один нужный путь не длиннее бюджета построения. Если поиск не был обрезан бюджетом,
+ * профиль покрывает любой T.
+ */
+final class ArrivalProfile {
+
+   // keys[k] — время k-го города в порядке возрастания; остальные массивы — лучший город среди первых k + 1.
+   private final int[] keys;
+   final int[] bestCity;
+   final int[] bestDistance;
+   final int[] bestTimeThere;
+   final int[] bestTimeBack;
+   private final int coverage;
+
+   private ArrivalProfile(int size, int coverage) {
+      this.keys = new int[size];
+      this.bestCity = new int[size];
+      this.bestDistance = new int[size];
+      this.bestTimeThere = new int[size];
+      this.bestTimeBack = new int[size];
+      this.coverage = coverage;
+   }
+
+   /**
+    * Профиль поездки в одну сторону по результатам поиска forward.
+    */
+   static ArrivalProfile oneWay(DijkstraWorkspace forward, int coverage) {
+      long[] order = new long[forward.reachedCount()];
+      for (int i = 0; i < order.length; i++) {
+         int city = forward.reached(i);
+         order[i] = (long) forward.minTimes[city] << 32 | city;
+      }
+      return build(order, forward, null, coverage);
+   }
+
+   /**
+    * Профиль поездки туда и обратно: в него входят города, достижимые в обе стороны,
+    * ключ — суммарное время, расстояние — расстояние пути "туда", как и в исходной задаче.
+    */
+   static ArrivalProfile roundTrip(DijkstraWorkspace forward, DijkstraWorkspace backward, int coverage) {
+      long[] order = new long[forward.reachedCount()];
+      int size = 0;
+      for (int i = 0; i < forward.reachedCount(); i++) {
+         int city = forward.reached(i);
+         long total = (long) forward.minTimes[city] + backward.minTimes[city];
+         // Город без обратного пути имеет время Integer.MAX_VALUE и сюда не попадает.
+         if (total <= Integer.MAX_VALUE - 1L) {
+            order[size++] = total << 32 | city;
+         }
+      }
+      return build(Arrays.copyOf(order, size), forward, backward, coverage);
+   }
+
+   private static ArrivalProfile build(long[] order, DijkstraWorkspace forward, DijkstraWorkspace backward, int coverage) {
+      Arrays.sort(order);
+      ArrivalProfile profile = new ArrivalProfile(order.length, coverage);
+      int best = -1;
+      for (int k = 0; k < order.length; k++) {
+         int city = (int) order[k];
+         int distance = forward.maxDistances[city];
+         // При равном расстоянии выбирается город с меньшим индексом — как при переборе городов по порядку.
+         if (best == -1 || distance > forward.maxDistances[best] || distance == forward.maxDistances[best] && city < best) {
+            best = city;
+         }
+         profile.keys[k] = (int) (order[k] >>> 32);
+         profile.bestCity[k] = best;
+         profile.bestDistance[k] = forward.maxDistances[best];
+         profile.bestTimeThere[k] = forward.minTimes[best];
+         profile.bestTimeBack[k] = backward == null ? 0 : backward.minTimes[best];
+      }
+      return profile;
+   }
+
+   /**
+    * @return Может ли профиль ответить на запрос с бюджетом maxTime.
+    */
+   boolean covers(int maxTime) {
+      return maxTime <= coverage;
+   }
+
+   int coverage() {
+      return coverage;
+   }
+
+   /**
+    * @return Позиция с ответом для бюджета maxTime (последний город со временем не больше maxTime) или -1.
+    */
+   int lastWithin(int maxTime) {
+      int low = 0;
+      int high = keys.length - 1;
+      int found = -1;
+      while (low <= high) {
+         int middle = (low + high) >>> 1;
+         if (keys[middle] <= maxTime) {
+            found = middle;
+            low = middle + 1;
+         }
+         else {
+            high = middle - 1;
+         }
+      }
+      return found;
+   }
+}
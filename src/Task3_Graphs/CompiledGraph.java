@@ -0,0 +1,112 @@
+package Task3_Graphs;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * "Замороженный" граф в формате CSR (compressed sparse row).
+ * <p>
+ * Города перенумерованы плотными индексами 0..V-1 в порядке перебора исходной коллекции городов
+ * (поэтому при равных расстояниях выбирается тот же город, что и при переборе cityNames), а ребра всех городов лежат подряд
+ * в примитивных массивах: ребра города v занимают позиции offsets[v]..offsets[v + 1] - 1.
+ * Обход соседей — это последовательное чтение массивов без коллекций, упаковки чисел и записей Edge.
+ */
+final class CompiledGraph {
+
+   // cityIds[индекс] — id города, indexById — обратное отображение (нужно только на границе API и при компиляции).
+   private final int[] cityIds;
+   private final Map<Integer, Integer> indexById;
+   final int[] offsets;
+   final int[] targets;
+   final int[] distances;
+   final int[] times;
+   // Наибольшее время одного ребра: определяет количество корзин в очереди Дейкстры с корзинами.
+   private final int maxEdgeTime;
+
+   private CompiledGraph(int[] cityIds, Map<Integer, Integer> indexById, int[] offsets, int[] targets, int[] distances, int[] times, int maxEdgeTime) {
+      this.cityIds = cityIds;
+      this.indexById = indexById;
+      this.offsets = offsets;
+      this.targets = targets;
+      this.distances = distances;
+      this.times = times;
+      this.maxEdgeTime = maxEdgeTime;
+   }
+
+   /**
+    * Строит CSR-представление списка смежности.
+    *
+    * @param adjacency Список смежности: id города -> исходящие ребра.
+    * @param cities    Все города графа.
+    */
+   static CompiledGraph compile(Map<Integer, List<Edge>> adjacency, Collection<Integer> cities) {
+      int[] cityIds = cities.stream().mapToInt(Integer::intValue).toArray();
+      int cityCount = cityIds.length;
+      Map<Integer, Integer> indexById = new HashMap<>();
+      for (int v = 0; v < cityCount; v++) {
+         indexById.put(cityIds[v], v);
+      }
+
+      int[] offsets = new int[cityCount + 1];
+      for (int v = 0; v < cityCount; v++) {
+         List<Edge> edges = adjacency.get(cityIds[v]);
+         offsets[v + 1] = offsets[v] + (edges == null ? 0 : edges.size());
+      }
+
+      int edgeCount = offsets[cityCount];
+      int[] targets = new int[edgeCount];
+      int[] distances = new int[edgeCount];
+      int[] times = new int[edgeCount];
+      int maxEdgeTime = 0;
+      for (int v = 0; v < cityCount; v++) {
+         List<Edge> edges = adjacency.get(cityIds[v]);
+         if (edges == null) {
+            continue;
+         }
+         int e = offsets[v];
+         for (Edge edge : edges) {
+            Integer target = indexById.get(edge.to());
+            if (target == null) {
+               throw new IllegalArgumentException("Ребро ведет в неизвестный город: " + edge.to());
+            }
+            targets[e] = target;
+            distances[e] = edge.distance();
+            times[e] = edge.time();
+            maxEdgeTime = Math.max(maxEdgeTime, edge.time());
+            e++;
+         }
+      }
+      return new CompiledGraph(cityIds, indexById, offsets, targets, distances, times, maxEdgeTime);
+   }
+
+   int cityCount() {
+      return cityIds.length;
+   }
+
+   int edgeCount() {
+      return targets.length;
+   }
+
+   int maxEdgeTime() {
+      return maxEdgeTime;
+   }
+
+   int cityId(int index) {
+      return cityIds[index];
+   }
+
+   /**
+    * @return Плотный индекс города.
+    *
+    * @throws IllegalArgumentException если такого города нет.
+    */
+   int indexOf(int cityId) {
+      Integer index = indexById.get(cityId);
+      if (index == null) {
+         throw new IllegalArgumentException("Неизвестный город: " + cityId);
+      }
+      return index;
+   }
+}
@@ -0,0 +1,317 @@
+package Task3_Graphs;
+
+import java.util.Arrays;
+
+/**
+ * Переиспользуемое рабочее пространство алгоритма Дейкстры над {@link CompiledGraph}.
+ * <p>
+ * Все массивы выделяются один раз на размер графа, поэтому запрос не создает объектов.
+ * Очередь — индексированная 4-арная куча с операцией уменьшения ключа: каждый город лежит в куче
+ * не более одного раза (вместо ленивого удаления устаревших записей), а 4-арная куча мельче двоичной
+ * и лучше использует кеш.
+ * <p>
+ * Ключ города упакован в long: старшие 32 бита — время, младшие — (Integer.MAX_VALUE - расстояние).
+ * Поэтому меньший ключ означает меньшее время, а при равном времени — большее расстояние, как и в исходной версии.
+ * <p>
+ * Для запросов с бюджетом времени есть {@link #runBounded}: очередь Дейкстры с корзинами по минутам (Dial),
+ * которая не раскрывает пути длиннее бюджета. Перед каждым запуском сбрасываются только города, затронутые
+ * предыдущим, поэтому короткий запрос на огромном графе стоит пропорционально достижимой области, а не размеру сети.
+ * Экземпляр не потокобезопасен: каждому потоку нужен свой.
+ */
+final class DijkstraWorkspace {
+
+   private static final int ARITY = 4;
+   // Наибольшее количество корзин Dial. Кольцо больше этого (огромное время ребра при большом бюджете)
+   // заняло бы слишком много памяти, а проход по почти пустым корзинам — слишком много времени: тогда работает куча.
+   private static final int MAX_BUCKETS = 1 << 16;
+
+   // Результаты последнего запуска по плотным индексам городов.
+   final int[] minTimes;
+   final int[] maxDistances;
+
+   private final long[] keys;
+   // heap — города в порядке кучи, position[город] — место города в куче или -1.
+   private final int[] heap;
+   private final int[] position;
+   private int heapSize;
+
+   // Города, получившие время в последнем запуске: только их нужно сбрасывать перед следующим.
+   private final int[] touched;
+   private int touchedCount;
+
+   // Корзины Dial: buckets[время % количество корзин] — голова двусвязного списка городов с этим временем.
+   private int[] buckets = new int[0];
+   private final int[] bucketNext;
+   private final int[] bucketPrevious;
+   private final boolean[] inBucket;
+
+   DijkstraWorkspace(int cityCount) {
+      this.minTimes = new int[cityCount];
+      this.maxDistances = new int[cityCount];
+      this.keys = new long[cityCount];
+      this.heap = new int[cityCount];
+      this.position = new int[cityCount];
+      this.touched = new int[cityCount];
+      this.bucketNext = new int[cityCount];
+      this.bucketPrevious = new int[cityCount];
+      this.inBucket = new boolean[cityCount];
+      Arrays.fill(minTimes, Integer.MAX_VALUE);
+      Arrays.fill(position, -1);
+   }
+
+   /**
+    * Кратчайшие по времени пути (при равном времени — самые длинные по расстоянию) из города source.
+    * Недостижимые города получают время Integer.MAX_VALUE и расстояние 0.
+    */
+   void run(CompiledGraph graph, int source) {
+      runHeap(graph, source, Integer.MAX_VALUE);
+   }
+
+   /**
+    * Поиск по куче, который не раскрывает пути длиннее maxTime минут.
+    *
+    * @return true, если бюджет ничего не обрезал.
+    */
+   private boolean runHeap(CompiledGraph graph, int source, int maxTime) {
+      reset();
+      touch(source);
+      minTimes[source] = 0;
+      push(source, key(0, 0));
+      int[] offsets = graph.offsets;
+      int[] targets = graph.targets;
+      int[] times = graph.times;
+      int[] distances = graph.distances;
+      boolean truncated = false;
+      while (heapSize > 0) {
+         int city = pop();
+         int time = minTimes[city];
+         int distance = maxDistances[city];
+         for (int e = offsets[city]; e < offsets[city + 1]; e++) {
+            if (times[e] > maxTime - time) {
+               truncated = true;
+               continue;
+            }
+            int neighbor = targets[e];
+            int newTime = time + times[e];
+            int newDistance = distance + distances[e];
+            // Лучше либо меньшее время, либо то же время и большее расстояние.
+            if (newTime < minTimes[neighbor] || newTime == minTimes[neighbor] && newDistance > maxDistances[neighbor]) {
+               if (minTimes[neighbor] == Integer.MAX_VALUE) {
+                  touch(neighbor);
+               }
+               minTimes[neighbor] = newTime;
+               maxDistances[neighbor] = newDistance;
+               long newKey = key(newTime, newDistance);
+               if (position[neighbor] == -1) {
+                  push(neighbor, newKey);
+               }
+               else {
+                  keys[neighbor] = newKey;
+                  siftUp(position[neighbor]);
+               }
+            }
+         }
+      }
+      return !truncated;
+   }
+
+   /**
+    * То же, что {@link #run}, но только для путей не длиннее maxTime минут.
+    * Города, до которых за бюджет не добраться, получают время Integer.MAX_VALUE и расстояние 0.
+    * <p>
+    * Вместо кучи — кольцо из (наибольшее время раскрываемого ребра + 1) корзин: все города в очереди имеют время
+    * от текущего до текущего + это время, поэтому корзина однозначно задается остатком от деления.
+    * Ребро длиннее бюджета не раскрывается никогда, так что кольцу хватает min(наибольшее время ребра, maxTime) + 1 корзин.
+    * Извлечение и уменьшение ключа — O(1), поиск заканчивается, когда очередь пуста или время превысило бюджет.
+    * Если кольцо получилось бы больше {@link #MAX_BUCKETS}, поиск идет по куче с тем же бюджетом.
+    *
+    * @return true, если бюджет ничего не обрезал и результат совпадает с полным поиском {@link #run}.
+    */
+   boolean runBounded(CompiledGraph graph, int source, int maxTime) {
+      if (maxTime < 0) {
+         reset();
+         return false;
+      }
+      int widestEdge = Math.min(graph.maxEdgeTime(), maxTime);
+      if (widestEdge >= MAX_BUCKETS) {
+         return runHeap(graph, source, maxTime);
+      }
+      int span = widestEdge + 1;
+      reset();
+      if (buckets.length < span) {
+         buckets = new int[span];
+         Arrays.fill(buckets, -1);
+      }
+
+      touch(source);
+      minTimes[source] = 0;
+      link(source, 0);
+      int queued = 1;
+      boolean truncated = false;
+      int[] offsets = graph.offsets;
+      int[] targets = graph.targets;
+      int[] times = graph.times;
+      int[] distances = graph.distances;
+      for (int time = 0; queued > 0 && time <= maxTime; time++) {
+         int slot = time % span;
+         // Город может вернуться в текущую корзину (ребро нулевого времени с большим расстоянием),
+         // поэтому корзина обрабатывается, пока не опустеет.
+         while (buckets[slot] != -1) {
+            int city = buckets[slot];
+            unlink(city, slot);
+            queued--;
+            int distance = maxDistances[city];
+            for (int e = offsets[city]; e < offsets[city + 1]; e++) {
+               // Сравнение через разность: time + times[e] может переполниться при бюджете около Integer.MAX_VALUE.
+               if (times[e] > maxTime - time) {
+                  truncated = true;
+                  continue;
+               }
+               int newTime = time + times[e];
+               int neighbor = targets[e];
+               int newDistance = distance + distances[e];
+               if (newTime < minTimes[neighbor]) {
+                  if (minTimes[neighbor] == Integer.MAX_VALUE) {
+                     touch(neighbor);
+                  }
+                  else if (inBucket[neighbor]) {
+                     unlink(neighbor, minTimes[neighbor] % span);
+                     queued--;
+                  }
+                  minTimes[neighbor] = newTime;
+                  maxDistances[neighbor] = newDistance;
+                  link(neighbor, newTime % span);
+                  queued++;
+               }
+               else if (newTime == minTimes[neighbor] && newDistance > maxDistances[neighbor]) {
+                  maxDistances[neighbor] = newDistance;
+                  if (!inBucket[neighbor]) {
+                     link(neighbor, newTime % span);
+                     queued++;
+                  }
+               }
+            }
+         }
+      }
+      return !truncated;
+   }
+
+   /**
+    * @return Количество городов, достигнутых последним запуском.
+    */
+   int reachedCount() {
+      return touchedCount;
+   }
+
+   /**
+    * @return i-й достигнутый город (плотный индекс) в порядке первого достижения.
+    */
+   int reached(int i) {
+      return touched[i];
+   }
+
+   private void reset() {
+      for (int i = 0; i < touchedCount; i++) {
+         int city = touched[i];
+         minTimes[city] = Integer.MAX_VALUE;
+         maxDistances[city] = 0;
+      }
+      touchedCount = 0;
+      heapSize = 0;
+   }
+
+   private void touch(int city) {
+      touched[touchedCount++] = city;
+   }
+
+   private void link(int city, int slot) {
+      int head = buckets[slot];
+      bucketNext[city] = head;
+      bucketPrevious[city] = -1;
+      if (head != -1) {
+         bucketPrevious[head] = city;
+      }
+      buckets[slot] = city;
+      inBucket[city] = true;
+   }
+
+   private void unlink(int city, int slot) {
+      int next = bucketNext[city];
+      int previous = bucketPrevious[city];
+      if (previous == -1) {
+         buckets[slot] = next;
+      }
+      else {
+         bucketNext[previous] = next;
+      }
+      if (next != -1) {
+         bucketPrevious[next] = previous;
+      }
+      inBucket[city] = false;
+   }
+
+   private static long key(int time, int distance) {
+      return (long) time << 32 | (Integer.MAX_VALUE - distance);
+   }
+
+   private void push(int city, long key) {
+      keys[city] = key;
+      heap[heapSize] = city;
+      position[city] = heapSize;
+      siftUp(heapSize++);
+   }
+
+   private int pop() {
+      int top = heap[0];
+      position[top] = -1;
+      int last = heap[--heapSize];
+      if (heapSize > 0) {
+         heap[0] = last;
+         position[last] = 0;
+         siftDown(0);
+      }
+      return top;
+   }
+
+   private void siftUp(int i) {
+      int city = heap[i];
+      long key = keys[city];
+      while (i > 0) {
+         int parent = (i - 1) / ARITY;
+         if (keys[heap[parent]] <= key) {
+            break;
+         }
+         heap[i] = heap[parent];
+         position[heap[i]] = i;
+         i = parent;
+      }
+      heap[i] = city;
+      position[city] = i;
+   }
+
+   private void siftDown(int i) {
+      int city = heap[i];
+      long key = keys[city];
+      while (true) {
+         int first = i * ARITY + 1;
+         if (first >= heapSize) {
+            break;
+         }
+         int best = first;
+         int last = Math.min(first + ARITY, heapSize);
+         for (int child = first + 1; child < last; child++) {
+            if (keys[heap[child]] < keys[heap[best]]) {
+               best = child;
+            }
+         }
+         if (keys[heap[best]] >= key) {
+            break;
+         }
+         heap[i] = heap[best];
+         position[heap[i]] = i;
+         i = best;
+      }
+      heap[i] = city;
+      position[city] = i;
+   }
+}
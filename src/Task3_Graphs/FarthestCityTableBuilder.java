@@ -0,0 +1,141 @@
+package Task3_Graphs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Построение {@link FarthestCityTable}: поиски из всех стартов, распределенные по потокам.
+ * <p>
+ * Потоки берут следующий старт из общего счетчика, поэтому "тяжелые" и "легкие" старты распределяются сами.
+ * У каждого потока свои рабочие пространства Дейкстры (прямое и обратное) и буфер сортировки,
+ * выделенные один раз, так что обработка старта не создает объектов. Оба поиска ограничены наибольшим бюджетом,
+ * а ответы для всех бюджетов снимаются одним проходом по городам, упорядоченным по времени.
+ * Каждый старт записывает только свою строку матриц, поэтому синхронизация не нужна.
+ */
+final class FarthestCityTableBuilder {
+
+   private final CompiledGraph graph;
+   private final CompiledGraph reverseGraph;
+   private final int[] budgets;
+   // Номера бюджетов по возрастанию значения и наибольший бюджет.
+   private final int[] budgetOrder;
+   private final int maxBudget;
+
+   private final int[] oneWayCities;
+   private final int[] oneWayDistances;
+   private final int[] roundTripCities;
+   private final int[] roundTripDistances;
+   private final AtomicInteger nextStart = new AtomicInteger();
+
+   FarthestCityTableBuilder(CompiledGraph graph, CompiledGraph reverseGraph, int[] budgets) {
+      this.graph = graph;
+      this.reverseGraph = reverseGraph;
+      this.budgets = budgets.clone();
+      this.budgetOrder = new int[budgets.length];
+      long[] order = new long[budgets.length];
+      for (int b = 0; b < budgets.length; b++) {
+         order[b] = (long) budgets[b] << 32 | b;
+      }
+      Arrays.sort(order);
+      for (int b = 0; b < budgets.length; b++) {
+         budgetOrder[b] = (int) order[b];
+      }
+      this.maxBudget = Arrays.stream(budgets).max().orElse(-1);
+
+      long cells = (long) graph.cityCount() * budgets.length;
+      if (cells > Integer.MAX_VALUE) {
+         throw new IllegalArgumentException("Слишком большая таблица: " + cells + " ячеек");
+      }
+      this.oneWayCities = new int[(int) cells];
+      this.oneWayDistances = new int[(int) cells];
+      this.roundTripCities = new int[(int) cells];
+      this.roundTripDistances = new int[(int) cells];
+   }
+
+   FarthestCityTable build(int threads) {
+      ExecutorService executor = Executors.newFixedThreadPool(threads);
+      try {
+         List<Future<?>> futures = new ArrayList<>();
+         for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(this::work));
+         }
+         for (Future<?> future : futures) {
+            future.get();
+         }
+      }
+      catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new IllegalStateException("Построение таблицы прервано", e);
+      }
+      catch (ExecutionException e) {
+         throw new IllegalStateException(e.getCause());
+      }
+      finally {
+         executor.shutdownNow();
+      }
+
+      int[] startCityIds = new int[graph.cityCount()];
+      for (int v = 0; v < startCityIds.length; v++) {
+         startCityIds[v] = graph.cityId(v);
+      }
+      return new FarthestCityTable(startCityIds, budgets, oneWayCities, oneWayDistances, roundTripCities, roundTripDistances);
+   }
+
+   private void work() {
+      int cityCount = graph.cityCount();
+      DijkstraWorkspace forward = new DijkstraWorkspace(cityCount);
+      DijkstraWorkspace backward = new DijkstraWorkspace(cityCount);
+      long[] order = new long[cityCount];
+
+      for (int start = nextStart.getAndIncrement(); start < cityCount; start = nextStart.getAndIncrement()) {
+         forward.runBounded(graph, start, maxBudget);
+         backward.runBounded(reverseGraph, start, maxBudget);
+
+         int size = 0;
+         for (int i = 0; i < forward.reachedCount(); i++) {
+            int city = forward.reached(i);
+            order[size++] = (long) forward.minTimes[city] << 32 | city;
+         }
+         sweep(start, order, size, forward, oneWayCities, oneWayDistances);
+
+         // Туда и обратно: суммарное время больше наибольшего бюджета ни для какого бюджета не подходит.
+         size = 0;
+         for (int i = 0; i < forward.reachedCount(); i++) {
+            int city = forward.reached(i);
+            long total = (long) forward.minTimes[city] + backward.minTimes[city];
+            if (total <= maxBudget) {
+               order[size++] = total << 32 | city;
+            }
+         }
+         sweep(start, order, size, forward, roundTripCities, roundTripDistances);
+      }
+   }
+
+   /**
+    * Заполняет строку start: бюджеты обходятся по возрастанию, а указатель по городам, упорядоченным
+    * по времени, поддерживает самый дальний город среди уже допустимых (при равном расстоянии — с меньшим индексом).
+    */
+   private void sweep(int start, long[] order, int size, DijkstraWorkspace forward, int[] cities, int[] distances) {
+      Arrays.sort(order, 0, size);
+      int best = -1;
+      int k = 0;
+      for (int b : budgetOrder) {
+         while (k < size && (int) (order[k] >>> 32) <= budgets[b]) {
+            int city = (int) order[k++];
+            int distance = forward.maxDistances[city];
+            if (best == -1 || distance > forward.maxDistances[best] || distance == forward.maxDistances[best] && city < best) {
+               best = city;
+            }
+         }
+         int cell = start * budgets.length + b;
+         cities[cell] = best == -1 ? -1 : graph.cityId(best);
+         distances[cell] = best == -1 ? -1 : forward.maxDistances[best];
+      }
+   }
+}
@@ -0,0 +1,72 @@
+package Task3_Graphs;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Замеры поиска на больших случайных сетях: полный и ограниченный бюджетом поиск, "ползунок" бюджета
+ * по профилю прибытия и таблица самых дальних городов для всех стартов.
+ * Демонстрация на исходной задаче — {@link TrainTravelSolver#main}.
+ */
+public class TrainNetworkBenchmark {
+
+   public static void main(String[] args) {
+      Random rand = new Random(42);
+
+      // Большая случайная сеть: время одного запроса после компиляции графа.
+      int cities = 200_000;
+      TrainTravelSolver network = randomNetwork(cities, 1_000_000, rand);
+      CompiledGraph graph = network.compiledGraph();
+      DijkstraWorkspace workspace = new DijkstraWorkspace(graph.cityCount());
+      workspace.run(graph, graph.indexOf(0));
+      long startedAt = System.nanoTime();
+      for (int query = 1; query <= 10; query++) {
+         workspace.run(graph, graph.indexOf(query));
+      }
+      System.out.printf("Сеть: %d станций, 1000000 ребер, полный поиск: %d мс\n", cities, (System.nanoTime() - startedAt) / 10_000_000);
+      startedAt = System.nanoTime();
+      for (int query = 1; query <= 1000; query++) {
+         workspace.runBounded(graph, graph.indexOf(query), 180);
+      }
+      System.out.printf("Поиск с бюджетом 180 минут: %d мкс\n", (System.nanoTime() - startedAt) / 1_000_000);
+
+      // "Ползунок" бюджета для одного старта: профиль строится несколько раз, остальные запросы — бинарный поиск.
+      startedAt = System.nanoTime();
+      for (int budget = 1; budget <= 1000; budget++) {
+         network.profile(false, 0, budget);
+      }
+      System.out.printf("1000 бюджетов для одного старта по профилю: %d мс\n", (System.nanoTime() - startedAt) / 1_000_000);
+
+      // Таблица самых дальних городов для всех стартов региональной сети.
+      int regionalCities = 2_000;
+      TrainTravelSolver regional = randomNetwork(regionalCities, 10_000, rand);
+      int[] budgets = {60, 120, 180, 240, 360, 480};
+      startedAt = System.nanoTime();
+      FarthestCityTable table = regional.farthestCityTable(budgets);
+      System.out.printf("\nТаблица для %d станций и %d бюджетов: %d мс (%d потоков)\n", regionalCities, budgets.length,
+              (System.nanoTime() - startedAt) / 1_000_000, Runtime.getRuntime().availableProcessors());
+      System.out.println("Самые дальние станции для первых стартов (в одну сторону / туда и обратно):");
+      for (int s = 0; s < 3; s++) {
+         StringBuilder row = new StringBuilder(String.format("Станция %-5d", table.startCityIds()[s]));
+         for (int b = 0; b < budgets.length; b++) {
+            int oneWay = table.oneWayCities()[table.cell(s, b)];
+            int roundTrip = table.roundTripCities()[table.cell(s, b)];
+            row.append(String.format(" | %d мин: %s / %s", budgets[b], oneWay == -1 ? "-" : oneWay, roundTrip == -1 ? "-" : roundTrip));
+         }
+         System.out.println(row);
+      }
+   }
+
+   private static TrainTravelSolver randomNetwork(int cities, int connections, Random rand) {
+      Map<Integer, String> stations = new HashMap<>();
+      for (int i = 0; i < cities; i++) {
+         stations.put(i, "Станция " + i);
+      }
+      TrainTravelSolver network = new TrainTravelSolver(stations);
+      for (int i = 0; i < connections; i++) {
+         network.addConnection(rand.nextInt(cities), rand.nextInt(cities), rand.nextInt(300) + 1, rand.nextInt(120) + 1);
+      }
+      return network;
+   }
+}
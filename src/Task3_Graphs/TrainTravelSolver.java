@@ -1,6 +1,8 @@
 package Task3_Graphs;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 
 /**
@@ -9,12 +11,41 @@ import java.util.*;
 public class TrainTravelSolver {
 
    private final Map<Integer, List<Edge>> adjacencyList;
+   // Обратные ребра (для путей "обратно"): ведутся вместе с прямыми, поэтому граф не нужно разворачивать на каждый запрос.
+   private final Map<Integer, List<Edge>> reverseAdjacencyList;
    private final Map<Integer, String> cityNames;
 
+   // --- Оптимизация №1 ---
+   // Для поиска граф "замораживается" в CSR-массивы, а Дейкстра работает в переиспользуемом пространстве
+   // на примитивных массивах. Оба объекта строятся лениво при первом запросе и сбрасываются при изменении графа.
+   private CompiledGraph compiledGraph;
+   private DijkstraWorkspace workspace;
+
+   // --- Оптимизация №2 ---
+   // Обратный граф компилируется вместе с прямым и имеет свое рабочее пространство, поэтому поиски "туда"
+   // и "обратно" в solveRoundTrip идут одновременно: обратный — в общем пуле, прямой — в вызывающем потоке.
+   // На маленьких графах передача задачи в пул дороже самого поиска, и оба поиска выполняются последовательно.
+   private static final int PARALLEL_EDGE_THRESHOLD = 1 << 14;
+   private CompiledGraph compiledReverseGraph;
+   private DijkstraWorkspace reverseWorkspace;
+
+   // --- Оптимизация №3 ---
+   // Запросы для одного и того же старта с разными бюджетами отвечаются по профилю прибытия бинарным поиском.
+   // Профиль строится поиском с бюджетом; если запрос его превышает, профиль перестраивается с бюджетом
+   // не меньше удвоенного, поэтому короткие запросы по-прежнему обходят только достижимую область,
+   // а "ползунок" бюджета вызывает O(log) перестроений. Профили хранятся в LRU-кешах и сбрасываются при изменении графа.
+   private static final int DEFAULT_PROFILE_CACHE_CAPACITY = 64;
+   private ProfileCache oneWayProfiles = new ProfileCache(DEFAULT_PROFILE_CACHE_CAPACITY);
+   private ProfileCache roundTripProfiles = new ProfileCache(DEFAULT_PROFILE_CACHE_CAPACITY);
+
    public TrainTravelSolver(Map<Integer, String> cityNames) {
       this.adjacencyList = new HashMap<>();
+      this.reverseAdjacencyList = new HashMap<>();
       this.cityNames = cityNames;
-      cityNames.keySet().forEach(cityId -> adjacencyList.put(cityId, new ArrayList<>()));
+      cityNames.keySet().forEach(cityId -> {
+         adjacencyList.put(cityId, new ArrayList<>());
+         reverseAdjacencyList.put(cityId, new ArrayList<>());
+      });
    }
 
    public static void main(String[] args) {
@@ -56,31 +87,40 @@ public class TrainTravelSolver {
     */
    public void addConnection(int from, int to, int distance, int time) {
       adjacencyList.get(from).add(new Edge(to, distance, time));
+      reverseAdjacencyList.get(to).add(new Edge(from, distance, time));
+      compiledGraph = null;
+      oneWayProfiles.clear();
+      roundTripProfiles.clear();
+   }
+
+   /**
+    * Задает размер кешей профилей прибытия (отдельно для поездок в одну сторону и туда и обратно).
+    * При переполнении вытесняется профиль, который дольше всего не использовался.
+    *
+    * @param capacity Максимальное количество профилей в каждом кеше; 0 отключает кеширование.
+    */
+   public void setProfileCacheCapacity(int capacity) {
+      if (capacity < 0) {
+         throw new IllegalArgumentException("Размер кеша не может быть отрицательным: " + capacity);
+      }
+      oneWayProfiles = new ProfileCache(capacity);
+      roundTripProfiles = new ProfileCache(capacity);
    }
 
    /**
     * Решает основное задание: найти самый дальний город в одну сторону.
+    *
+    * @throws IllegalArgumentException если стартового города нет в сети.
     */
    public void solveOneWay(int startCityId, int maxTime) {
-      DijkstraResult result = runDijkstra(startCityId);
-
-      int farthestCity = -1;
-      int maxDist = -1;
-
-      for (int cityId : cityNames.keySet()) {
-         if (result.minTimes().get(cityId) <= maxTime) {
-            if (result.maxDistances().get(cityId) > maxDist) {
-               maxDist = result.maxDistances().get(cityId);
-               farthestCity = cityId;
-            }
-         }
-      }
+      ArrivalProfile profile = profile(false, startCityId, maxTime);
+      int answer = profile.lastWithin(maxTime);
 
       System.out.println("--- Основное задание (путь в одну сторону) ---");
-      if (farthestCity != -1) {
-         System.out.printf("Самый дальний город, достижимый за %d минут: %s\n", maxTime, cityNames.get(farthestCity));
-         System.out.printf("   - Расстояние: %d км\n", maxDist);
-         System.out.printf("   - Время в пути: %d минут\n", result.minTimes().get(farthestCity));
+      if (answer != -1) {
+         System.out.printf("Самый дальний город, достижимый за %d минут: %s\n", maxTime, cityNames.get(compiledGraph.cityId(profile.bestCity[answer])));
+         System.out.printf("   - Расстояние: %d км\n", profile.bestDistance[answer]);
+         System.out.printf("   - Время в пути: %d минут\n", profile.bestTimeThere[answer]);
       }
       else {
          System.out.println("Невозможно достичь ни одного города за указанное время.");
@@ -89,42 +129,21 @@ public class TrainTravelSolver {
 
    /**
     * Решает дополнительное задание: найти самый дальний город с возможностью вернуться.
+    *
+    * @throws IllegalArgumentException если стартового города нет в сети.
     */
    public void solveRoundTrip(int startCityId, int maxTime) {
-      // 1. Запускаем Дейкстру из старта, чтобы найти пути "туда".
-      DijkstraResult forwardResult = runDijkstra(startCityId);
-
-      // 2. Создаем "обратный" граф, чтобы найти пути "обратно".
-      TrainTravelSolver reversedSolver = createReversedSolver();
-      DijkstraResult backwardResult = reversedSolver.runDijkstra(startCityId);
-
-      int farthestCity = -1;
-      int maxDist = -1;
-
-      for (int cityId : cityNames.keySet()) {
-         int timeTo = forwardResult.minTimes().get(cityId);
-         int timeFrom = backwardResult.minTimes().get(cityId);
-
-         if (timeTo == Integer.MAX_VALUE || timeFrom == Integer.MAX_VALUE) {
-            continue;
-         }
-
-         if (timeTo + timeFrom <= maxTime) {
-            if (forwardResult.maxDistances().get(cityId) > maxDist) {
-               maxDist = forwardResult.maxDistances().get(cityId);
-               farthestCity = cityId;
-            }
-         }
-      }
+      ArrivalProfile profile = profile(true, startCityId, maxTime);
+      int answer = profile.lastWithin(maxTime);
 
       System.out.println("\n--- Дополнительное задание (путь туда и обратно) ---");
-      if (farthestCity != -1) {
-         System.out.printf("Самый дальний город с возможностью вернуться за %d минут: %s\n", maxTime, cityNames.get(farthestCity));
-         System.out.printf("   - Расстояние: %d км\n", maxDist);
+      if (answer != -1) {
+         System.out.printf("Самый дальний город с возможностью вернуться за %d минут: %s\n", maxTime, cityNames.get(compiledGraph.cityId(profile.bestCity[answer])));
+         System.out.printf("   - Расстояние: %d км\n", profile.bestDistance[answer]);
          System.out.printf("   - Время 'туда': %d мин, Время 'обратно': %d мин. Общее: %d мин.\n",
-                 forwardResult.minTimes().get(farthestCity),
-                 backwardResult.minTimes().get(farthestCity),
-                 forwardResult.minTimes().get(farthestCity) + backwardResult.minTimes().get(farthestCity));
+                 profile.bestTimeThere[answer],
+                 profile.bestTimeBack[answer],
+                 profile.bestTimeThere[answer] + profile.bestTimeBack[answer]);
       }
       else {
          System.out.println("Невозможно совершить путешествие туда и обратно ни в один город за указанное время.");
@@ -132,79 +151,101 @@ public class TrainTravelSolver {
    }
 
    /**
-    * Реализация алгоритма Дейкстры для поиска путей с минимальным временем и максимальным расстоянием.
+    * Самые дальние города в одну сторону и туда и обратно для каждого стартового города и каждого бюджета.
+    * Поиски из всех стартов выполняются параллельно на всех доступных процессорах.
     *
-    * @param startCityId ID начального города.
+    * @param budgets Бюджеты времени в минутах (столбцы таблицы).
+    */
+   public FarthestCityTable farthestCityTable(int[] budgets) {
+      return farthestCityTable(budgets, Runtime.getRuntime().availableProcessors());
+   }
+
+   /**
+    * @param budgets Бюджеты времени в минутах (столбцы таблицы).
+    * @param threads Количество потоков.
+    */
+   public FarthestCityTable farthestCityTable(int[] budgets, int threads) {
+      if (threads <= 0) {
+         throw new IllegalArgumentException("Количество потоков должно быть положительным: " + threads);
+      }
+      compiledGraph();
+      return new FarthestCityTableBuilder(compiledGraph, compiledReverseGraph, budgets).build(threads);
+   }
+
+   /**
+    * Профиль прибытия из кеша или новый, если в кеше его нет или он не покрывает бюджет maxTime.
     *
-    * @return Результаты работы алгоритма.
+    * @param roundTrip Профиль поездки туда и обратно (иначе — в одну сторону).
     */
-   private DijkstraResult runDijkstra(int startCityId) {
-      Map<Integer, Integer> minTimes = new HashMap<>();
-      Map<Integer, Integer> maxDistances = new HashMap<>();
-      Map<Integer, Integer> predecessors = new HashMap<>();
-
-      // PriorityQueue будет автоматически сортировать состояния по времени (и затем по расстоянию).
-      PriorityQueue<PathState> pq = new PriorityQueue<>();
-
-      // Инициализация: все времена - бесконечность, все расстояния - 0.
-      for (int cityId : cityNames.keySet()) {
-         minTimes.put(cityId, Integer.MAX_VALUE);
-         maxDistances.put(cityId, 0);
+   ArrivalProfile profile(boolean roundTrip, int startCityId, int maxTime) {
+      CompiledGraph graph = compiledGraph();
+      ProfileCache cache = roundTrip ? roundTripProfiles : oneWayProfiles;
+      ArrivalProfile profile = cache.get(startCityId);
+      if (profile != null && profile.covers(maxTime)) {
+         return profile;
+      }
+      int budget = Math.max(maxTime, 0);
+      if (profile != null) {
+         budget = (int) Math.max(budget, Math.min(Integer.MAX_VALUE, 2L * profile.coverage()));
       }
 
-      // Начальное состояние.
-      minTimes.put(startCityId, 0);
-      pq.add(new PathState(startCityId, 0, 0));
-
-      while (!pq.isEmpty()) {
-         PathState currentState = pq.poll();
-         int currentCity = currentState.city();
-         int currentTime = currentState.totalTime();
-         int currentDistance = currentState.totalDistance();
-
-         // Оптимизация: если мы уже нашли более короткий (или такой же по времени, но более длинный по расстоянию)
-         // путь до этого города, то текущее состояние можно проигнорировать.
-         if (currentTime > minTimes.get(currentCity) ||
-                 (currentTime == minTimes.get(currentCity) && currentDistance < maxDistances.get(currentCity))) {
-            continue;
+      int start = graph.indexOf(startCityId);
+      boolean complete;
+      if (!roundTrip) {
+         complete = workspace.runBounded(graph, start, budget);
+         profile = ArrivalProfile.oneWay(workspace, complete ? Integer.MAX_VALUE : budget);
+      }
+      else {
+         // Дейкстра из старта по прямому графу находит пути "туда", по обратному — пути "обратно".
+         // Ни один из путей не может быть длиннее всего бюджета, поэтому оба поиска ограничены им.
+         // Оба графа компилируются из одного набора городов, так что плотные индексы совпадают.
+         int limit = budget;
+         if (graph.edgeCount() >= PARALLEL_EDGE_THRESHOLD) {
+            ForkJoinTask<Boolean> backward = ForkJoinPool.commonPool().submit(() -> reverseWorkspace.runBounded(compiledReverseGraph, start, limit));
+            complete = workspace.runBounded(graph, start, limit);
+            complete &= backward.join();
          }
-
-         // Исследуем всех соседей текущего города.
-         for (Edge edge : adjacencyList.getOrDefault(currentCity, Collections.emptyList())) {
-            int neighborCity = edge.to();
-            int newTime = currentTime + edge.time();
-            int newDistance = currentDistance + edge.distance();
-
-            // Если найден путь с меньшим временем...
-            if (newTime < minTimes.get(neighborCity)) {
-               minTimes.put(neighborCity, newTime);
-               maxDistances.put(neighborCity, newDistance);
-               predecessors.put(neighborCity, currentCity);
-               pq.add(new PathState(neighborCity, newTime, newDistance));
-            }
-            // ...или если найден путь с таким же временем, но БОЛЬШИМ расстоянием.
-            else {
-               if (newTime == minTimes.get(neighborCity) && newDistance > maxDistances.get(neighborCity)) {
-                  maxDistances.put(neighborCity, newDistance);
-                  predecessors.put(neighborCity, currentCity);
-                  pq.add(new PathState(neighborCity, newTime, newDistance));
-               }
-            }
+         else {
+            complete = workspace.runBounded(graph, start, limit);
+            complete &= reverseWorkspace.runBounded(compiledReverseGraph, start, limit);
          }
+         profile = ArrivalProfile.roundTrip(workspace, reverseWorkspace, complete ? Integer.MAX_VALUE : budget);
       }
-      return new DijkstraResult(minTimes, maxDistances, predecessors);
+      cache.put(startCityId, profile);
+      return profile;
    }
 
-   private TrainTravelSolver createReversedSolver() {
-      TrainTravelSolver reversed = new TrainTravelSolver(this.cityNames);
-      for (Map.Entry<Integer, List<Edge>> entry : this.adjacencyList.entrySet()) {
-         int from = entry.getKey();
-         for (Edge edge : entry.getValue()) {
-            int to = edge.to();
-            // Добавляем ребро в обратном направлении
-            reversed.addConnection(to, from, edge.distance(), edge.time());
+   /**
+    * @return Скомпилированный прямой граф (компилируется заново после изменения сети).
+    */
+   CompiledGraph compiledGraph() {
+      if (compiledGraph == null) {
+         compiledGraph = CompiledGraph.compile(adjacencyList, cityNames.keySet());
+         compiledReverseGraph = CompiledGraph.compile(reverseAdjacencyList, cityNames.keySet());
+         if (workspace == null || workspace.minTimes.length != compiledGraph.cityCount()) {
+            workspace = new DijkstraWorkspace(compiledGraph.cityCount());
+            reverseWorkspace = new DijkstraWorkspace(compiledGraph.cityCount());
          }
       }
-      return reversed;
+      return compiledGraph;
+   }
+
+   /**
+    * LRU-кеш профилей прибытия по id стартового города.
+    */
+   private static final class ProfileCache extends LinkedHashMap<Integer, ArrivalProfile> {
+      private static final long serialVersionUID = 1L;
+
+      private final int capacity;
+
+      ProfileCache(int capacity) {
+         super(16, 0.75f, true);
+         this.capacity = capacity;
+      }
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Integer, ArrivalProfile> eldest) {
+         return size() > capacity;
+      }
    }
 }